@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks with the JMH command line, writing the results as JSON so runs can be
+ * compared.
+ *
+ *    java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regex]
+ *
+ * Unless the options say otherwise, the results go to jmh-result.json in the working directory.
+ * Any option of JMH can be passed, for example -p vertices=1000 to run one size or -rff to name
+ * the file.
+ * @author Gunnar Arnesen
+ *
+ */
+public class BenchmarkRunner {
+
+	public static final String RESULT_FILE = "jmh-result.json";
+
+	private BenchmarkRunner() {}
+
+	/**
+	 * Runs the benchmarks.
+	 * @param args - The options of JMH
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		List<String> options = new ArrayList<String>(Arrays.asList(args));
+		if (!options.contains("-rf")) {
+			options.add(0, "-rf");
+			options.add(1, "json");
+		}
+		if (!options.contains("-rff")) {
+			options.add(0, "-rff");
+			options.add(1, RESULT_FILE);
+		}
+		Main.main(options.toArray(new String[0]));
+	}
+
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import math.AdjacencyStorage;
+import math.Graph;
+import math.GraphAnalysis;
+
+/**
+ * Benchmarks each analysis of an unweighted graph. Graph stores the results of its analyses,
+ * so every call is made on a new Graph over the same storage.
+ * @author Gunnar Arnesen
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+	@Param({"100", "1000", "4000"})
+	public int vertices;
+
+	@Param({"0.001", "0.01", "0.1"})
+	public double density;
+
+	private AdjacencyStorage storage;
+
+	@Setup
+	public void setup() {
+		storage = GraphGenerator.storage(vertices, density, 1);
+	}
+
+	@Benchmark
+	public boolean isConnected() {
+		return new Graph(storage).is_connected();
+	}
+
+	@Benchmark
+	public boolean hasCycle() {
+		return new Graph(storage).has_cycle();
+	}
+
+	@Benchmark
+	public boolean isBipartite() {
+		return new Graph(storage).is_bipartite();
+	}
+
+	@Benchmark
+	public String shortestPath() {
+		return new Graph(storage).shortestPath(1, vertices);
+	}
+
+	@Benchmark
+	public GraphAnalysis analysis() {
+		return GraphAnalysis.of(new Graph(storage), new int[] {1, vertices});
+	}
+
+}
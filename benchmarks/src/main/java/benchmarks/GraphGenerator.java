@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.Random;
+
+import math.AdjacencyStorage;
+import math.GraphParser;
+
+/**
+ * Generates random undirected graphs for the benchmarks, in the comma-separated text format
+ * of the application so they are parsed into the same storage the application would pick.
+ * The same arguments always give the same graph.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphGenerator {
+
+	private static final long SEED = 42;
+
+	private GraphGenerator() {}
+
+	/**
+	 * Generates the text of a random graph. Each pair of distinct vertices is joined by an edge
+	 * with the given probability.
+	 * @param vertices
+	 * @param density - The probability of each edge, from 0 to 1
+	 * @param maxWeight - The largest weight of an edge, or 1 for an unweighted graph
+	 * @return the representation of the graph
+	 */
+	public static String generate(int vertices, double density, int maxWeight) {
+		if (vertices < 1 || density < 0 || density > 1 || maxWeight < 1) {
+			throw new IllegalArgumentException("Cannot generate a graph of " + vertices + " vertices with density " + density);
+		}
+		Random random = new Random(SEED ^ vertices * 31L ^ Double.doubleToLongBits(density) ^ maxWeight);
+		int[][] matrix = new int[vertices][vertices];
+		for (int row = 0; row < vertices; row++) {
+			for (int col = row + 1; col < vertices; col++) {
+				if (random.nextDouble() < density) {
+					matrix[row][col] = matrix[col][row] = 1 + random.nextInt(maxWeight);
+				}
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(vertices * vertices * 2 + 8).append(vertices);
+		for (int[] row : matrix) {
+			for (int entry : row) {
+				sb.append(',').append(entry);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Generates a random graph and parses it into its storage.
+	 * @param vertices
+	 * @param density
+	 * @param maxWeight
+	 * @return the storage of the graph
+	 */
+	public static AdjacencyStorage storage(int vertices, double density, int maxWeight) {
+		return new GraphParser().parse(generate(vertices, density, maxWeight)).getStorage();
+	}
+
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import math.SquareMatrix;
+
+/**
+ * Benchmarks multiplying adjacency matrices and raising them to a power.
+ * @author Gunnar Arnesen
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+	@Param({"64", "256", "512"})
+	public int vertices;
+
+	@Param({"0.05", "0.5"})
+	public double density;
+
+	private SquareMatrix matrix;
+
+	@Setup
+	public void setup() {
+		matrix = GraphGenerator.storage(vertices, density, 1).toSquareMatrix();
+	}
+
+	@Benchmark
+	public SquareMatrix multiply() {
+		return matrix.multiply(matrix);
+	}
+
+	@Benchmark
+	public SquareMatrix power() {
+		return matrix.power(4);
+	}
+
+}
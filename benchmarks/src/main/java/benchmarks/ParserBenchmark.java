@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import math.Graph;
+import math.GraphParser;
+import math.ParsedGraph;
+
+/**
+ * Benchmarks parsing the text format, both with a GraphParser that is kept between lines, as
+ * the ingestion pipeline does, and through the Graph constructor.
+ * @author Gunnar Arnesen
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+	@Param({"100", "1000"})
+	public int vertices;
+
+	@Param({"0.01", "0.1", "0.5"})
+	public double density;
+
+	@Param({"1", "100"})
+	public int maxWeight;
+
+	private String line;
+	private GraphParser parser;
+
+	@Setup
+	public void setup() {
+		line = GraphGenerator.generate(vertices, density, maxWeight);
+		parser = new GraphParser();
+	}
+
+	@Benchmark
+	public ParsedGraph parse() {
+		return parser.parse(line);
+	}
+
+	@Benchmark
+	public Graph graph() {
+		return new Graph(line);
+	}
+
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import math.AdjacencyStorage;
+import math.PrimsAlgorithm;
+
+/**
+ * Benchmarks running Prim's algorithm to the end, one step at a time as the GUI does, on
+ * weighted graphs.
+ * @author Gunnar Arnesen
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimsBenchmark {
+
+	@Param({"100", "1000", "4000"})
+	public int vertices;
+
+	@Param({"0.01", "0.1", "0.5"})
+	public double density;
+
+	private AdjacencyStorage storage;
+
+	@Setup
+	public void setup() {
+		storage = GraphGenerator.storage(vertices, density, 100);
+	}
+
+	@Benchmark
+	public int fullRun() {
+		PrimsAlgorithm prim = new PrimsAlgorithm(storage);
+		while (prim.stepForward()) {
+			// Step until every reachable vertex is in the tree
+		}
+		return prim.getStep();
+	}
+
+}
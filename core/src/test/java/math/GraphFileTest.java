@@ -0,0 +1,170 @@
+package math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that graphs written to a GraphFile read back the same, and that corrupt records are
+ * rejected.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphFileTest {
+
+	/** Where the matrix of the first record starts: the file header and the record header **/
+	private static final int FIRST_MATRIX = 48;
+
+	private Path path;
+
+	@Before
+	public void createFile() throws IOException {
+		path = Files.createTempFile("graphs", ".cgrf");
+	}
+
+	@After
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		Random random = new Random(3);
+		int[][][] matrices = new int[9][][];
+		try (GraphFile.Writer writer = new GraphFile.Writer(path)) {
+			for (int i = 0; i < matrices.length; i++) {
+				int size = i < 3 ? 5 + i : 70 + i;
+				matrices[i] = GraphTest.randomMatrix(random, size, 0.05, i % 2 == 0);
+				if (i % 2 == 1 && i % 3 != 1) {
+					// A weighted graph, in every storage but a BitMatrix
+					matrices[i][0][1] = matrices[i][1][0] = 9;
+				}
+				AdjacencyStorage storage = GraphTest.storage(i % 3, matrices[i]);
+				writer.add(storage, i % 2 == 0 ? new int[] {1, size} : null);
+			}
+			assertEquals(matrices.length, writer.getGraphCount());
+		}
+
+		assertTrue(GraphFile.isGraphFile(path));
+		try (GraphFile file = GraphFile.open(path)) {
+			assertEquals(matrices.length, file.getGraphCount());
+			for (int i = 0; i < matrices.length; i++) {
+				ParsedGraph parsed = file.read(i);
+				AdjacencyStorage storage = parsed.getStorage();
+				int size = matrices[i].length;
+				assertEquals(size, storage.getSize());
+				for (int row = 0; row < size; row++) {
+					for (int col = 0; col < size; col++) {
+						assertEquals("graph " + i, matrices[i][row][col], storage.get(row, col));
+					}
+				}
+				if (i % 2 == 0) {
+					assertArrayEquals(new int[] {1, size}, parsed.getVertexPair());
+				} else {
+					assertNull(parsed.getVertexPair());
+				}
+				assertEquals(new Graph(GraphTest.storage(0, matrices[i])).is_connected(), file.getGraph(i).is_connected());
+			}
+		}
+	}
+
+	@Test
+	public void notAGraphFile() throws IOException {
+		Files.write(path, "3,0,1,1,1,0,1,1,1,0".getBytes("ISO-8859-1"));
+		assertFalse(GraphFile.isGraphFile(path));
+		try {
+			GraphFile.open(path).close();
+			fail("The file was opened.");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void corruptRowStart() throws IOException {
+		// The first row starts past the last entry
+		writeCsr();
+		assertCorrupt(FIRST_MATRIX, 1000);
+	}
+
+	@Test
+	public void descendingRows() throws IOException {
+		writeCsr();
+		assertCorrupt(FIRST_MATRIX + 4 * 2, 0);
+	}
+
+	@Test
+	public void columnOutsideMatrix() throws IOException {
+		int size = writeCsr();
+		assertCorrupt(FIRST_MATRIX + 4 * (size + 1), size);
+	}
+
+	@Test
+	public void repeatedColumn() throws IOException {
+		// Vertex 0 is joined to 1 and 2, so its second column is made equal to its first
+		int size = writeCsr();
+		assertCorrupt(FIRST_MATRIX + 4 * (size + 2), 1);
+	}
+
+	@Test
+	public void bitPastLastColumn() throws IOException {
+		// The low half of the only word of the first row gets the bit of column 5
+		try (GraphFile.Writer writer = new GraphFile.Writer(path)) {
+			writer.add(new BitMatrix(5), null);
+		}
+		assertCorrupt(FIRST_MATRIX + 4, 1 << 5);
+	}
+
+	/**
+	 * Writes a sparse graph where vertex 0 is joined to 1 and 2 and the others form a path.
+	 * @return the number of vertices
+	 */
+	private int writeCsr() throws IOException {
+		int size = AdjacencyStorage.SPARSE_MIN_VERTICES;
+		int[][] matrix = new int[size][size];
+		matrix[0][1] = matrix[1][0] = 1;
+		matrix[0][2] = matrix[2][0] = 1;
+		for (int v = 3; v < size; v++) {
+			matrix[v - 1][v] = matrix[v][v - 1] = 1;
+		}
+		try (GraphFile.Writer writer = new GraphFile.Writer(path)) {
+			writer.add(CsrMatrix.fromMatrix(matrix), null);
+		}
+		return size;
+	}
+
+	/**
+	 * Overwrites an int of the file and checks that reading the first graph fails.
+	 * @param position
+	 * @param value
+	 */
+	private void assertCorrupt(long position, int value) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(4).putInt(value);
+			buffer.flip();
+			channel.write(buffer, position);
+		}
+		try (GraphFile file = GraphFile.open(path)) {
+			file.read(0);
+			fail("The corrupt record was read.");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Checks that GraphParser reads valid lines and rejects invalid ones with a GraphFormatException
+ * before allocating anything for them.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphParserTest {
+
+	@Test
+	public void parsesMatrixAndPair() {
+		ParsedGraph parsed = new GraphParser().parse("3,0,1,1,1,0,1,1,1,0,1,3");
+		AdjacencyStorage storage = parsed.getStorage();
+		assertEquals(3, storage.getSize());
+		assertEquals(0, storage.get(0, 0));
+		assertEquals(1, storage.get(0, 2));
+		assertArrayEquals(new int[] {1, 3}, parsed.getVertexPair());
+	}
+
+	@Test
+	public void parsesWithoutPair() {
+		ParsedGraph parsed = new GraphParser().parse(" 2, 0, 1 ,1,0\r");
+		assertEquals(2, parsed.getStorage().getSize());
+		assertNull(parsed.getVertexPair());
+	}
+
+	@Test
+	public void keepsWeights() {
+		ParsedGraph parsed = new GraphParser().parse("2,0,7,7,0");
+		assertEquals(7, parsed.getStorage().get(1, 0));
+	}
+
+	@Test
+	public void sparseLineBecomesCsr() {
+		int size = AdjacencyStorage.SPARSE_MIN_VERTICES;
+		StringBuilder line = new StringBuilder().append(size);
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				line.append(',').append(Math.abs(row - col) == 1 ? 1 : 0);
+			}
+		}
+		AdjacencyStorage storage = new GraphParser().parse(line.toString()).getStorage();
+		assertTrue(storage instanceof CsrMatrix);
+		assertEquals(1, storage.get(5, 6));
+		assertEquals(0, storage.get(5, 7));
+	}
+
+	@Test
+	public void blankLine() {
+		assertNull(new GraphParser().parse(""));
+		assertNull(new GraphParser().parse("  \t"));
+	}
+
+	@Test
+	public void hugeVertexCount() {
+		assertRejected("2147483647");
+		assertRejected("2147483647,0");
+		assertRejected("999999999,0");
+		assertRejected("65536,0,0,0");
+	}
+
+	@Test
+	public void numberTooLarge() {
+		assertRejected("2147483648,0");
+		assertRejected("2,0,1,1,99999999999");
+	}
+
+	@Test
+	public void badVertexCount() {
+		assertRejected("0");
+		assertRejected("-3,0,0");
+	}
+
+	@Test
+	public void badCharacters() {
+		assertRejected("2,0,1,1,x");
+		assertRejected("2,0,1;1,0");
+		assertRejected("2,0,1 1,1,0");
+		assertRejected("2,0,--1,1,0");
+		assertRejected("2,0,1-,1,0");
+	}
+
+	@Test
+	public void missingEntries() {
+		assertRejected("2,0,1,1");
+		assertRejected("2,0,,1,0");
+		assertRejected("2,0,1,1,0,");
+	}
+
+	@Test
+	public void wrongPair() {
+		assertRejected("2,0,1,1,0,1");
+		assertRejected("2,0,1,1,0,1,2,1");
+	}
+
+	@Test
+	public void reportsColumn() {
+		try {
+			new GraphParser().parse("2,0,x,1,0");
+			fail("The line was accepted.");
+		} catch (GraphFormatException e) {
+			assertEquals(1, e.getLine());
+			assertEquals(5, e.getColumn());
+		}
+	}
+
+	@Test
+	public void reusableAfterError() {
+		GraphParser parser = new GraphParser();
+		try {
+			parser.parse("3,0,1,1,1,0,1,1,1");
+			fail("The line was accepted.");
+		} catch (GraphFormatException e) {
+			// Expected
+		}
+		assertEquals(2, parser.parse("2,0,1,1,0").getStorage().getSize());
+	}
+
+	/**
+	 * Checks that a line is rejected.
+	 * @param line
+	 */
+	private static void assertRejected(String line) {
+		try {
+			new GraphParser().parse(line);
+			fail("The line was accepted: " + line);
+		} catch (GraphFormatException e) {
+			// Expected
+		}
+	}
+
+}
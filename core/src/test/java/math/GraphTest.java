@@ -0,0 +1,242 @@
+package math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the analyses of Graph against brute force on random graphs, for every storage.
+ *
+ * Connectivity, cycles and bipartiteness are decided from the transitive closure of the
+ * adjacency matrix, and shortest paths from the Floyd-Warshall distances.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphTest {
+
+	private static final int GRAPHS = 40;
+
+	@Test
+	public void squareMatrix() {
+		check(0, false);
+	}
+
+	@Test
+	public void bitMatrix() {
+		check(1, false);
+	}
+
+	@Test
+	public void csrMatrix() {
+		check(2, false);
+	}
+
+	@Test
+	public void selfLoops() {
+		check(0, true);
+		check(1, true);
+		check(2, true);
+	}
+
+	/**
+	 * Checks random graphs of the sizes around AdjacencyStorage.SPARSE_MIN_VERTICES.
+	 * @param kind - 0 for a SquareMatrix, 1 for a BitMatrix and 2 for a CsrMatrix
+	 * @param loops - If the graphs may have self loops
+	 */
+	private static void check(int kind, boolean loops) {
+		Random random = new Random(kind * 31 + (loops ? 7 : 0));
+		for (int g = 0; g < GRAPHS; g++) {
+			int size = 1 + random.nextInt(g % 2 == 0 ? 12 : 80);
+			int[][] matrix = randomMatrix(random, size, random.nextDouble() * 3 / size, loops);
+			Graph graph = new Graph(storage(kind, matrix));
+			String name = "kind " + kind + ", graph " + g;
+
+			boolean[][] reach = closure(matrix);
+			boolean connected = true;
+			for (int v = 0; v < size; v++) {
+				connected &= reach[0][v];
+			}
+			assertEquals(name, connected, graph.is_connected());
+			assertEquals(name, hasCycle(matrix, reach), graph.has_cycle());
+			assertEquals(name, isBipartite(matrix), graph.is_bipartite());
+
+			int[][] distance = distances(matrix);
+			for (int q = 0; q < 10; q++) {
+				int start = random.nextInt(size);
+				int end = random.nextInt(size);
+				checkPath(name, matrix, distance[start][end], start, end, graph.shortestPath(start + 1, end + 1));
+			}
+		}
+	}
+
+	/**
+	 * Creates a random undirected graph.
+	 * @param random
+	 * @param size
+	 * @param density - The chance of each edge
+	 * @param loops - If the graph may have self loops
+	 * @return the adjacency matrix
+	 */
+	static int[][] randomMatrix(Random random, int size, double density, boolean loops) {
+		int[][] matrix = new int[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int col = loops ? row : row + 1; col < size; col++) {
+				if (random.nextDouble() < (row == col ? density / 4 : density)) {
+					matrix[row][col] = 1;
+					matrix[col][row] = 1;
+				}
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Creates a storage holding a matrix.
+	 * @param kind - 0 for a SquareMatrix, 1 for a BitMatrix and 2 for a CsrMatrix
+	 * @param matrix
+	 * @return the storage
+	 */
+	static AdjacencyStorage storage(int kind, int[][] matrix) {
+		switch (kind) {
+		case 0:
+			int[][] copy = new int[matrix.length][];
+			for (int row = 0; row < matrix.length; row++) {
+				copy[row] = matrix[row].clone();
+			}
+			return new SquareMatrix(copy);
+		case 1:
+			return BitMatrix.fromMatrix(matrix);
+		default:
+			return CsrMatrix.fromMatrix(matrix);
+		}
+	}
+
+	/**
+	 * Computes which vertices reach each other, every vertex reaching itself.
+	 * @param matrix
+	 * @return the transitive closure
+	 */
+	private static boolean[][] closure(int[][] matrix) {
+		int size = matrix.length;
+		boolean[][] reach = new boolean[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				reach[row][col] = row == col || matrix[row][col] != 0;
+			}
+		}
+		for (int k = 0; k < size; k++) {
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					reach[row][col] |= reach[row][k] && reach[k][col];
+				}
+			}
+		}
+		return reach;
+	}
+
+	/**
+	 * A graph has a cycle if it has a self loop or more edges than a forest on its components.
+	 * @param matrix
+	 * @param reach
+	 * @return true if the graph has a cycle
+	 */
+	private static boolean hasCycle(int[][] matrix, boolean[][] reach) {
+		int size = matrix.length;
+		int edges = 0;
+		int components = 0;
+		for (int row = 0; row < size; row++) {
+			if (matrix[row][row] != 0) {
+				return true;
+			}
+			for (int col = row + 1; col < size; col++) {
+				edges += matrix[row][col] != 0 ? 1 : 0;
+			}
+			boolean first = true;
+			for (int other = 0; other < row; other++) {
+				first &= !reach[row][other];
+			}
+			components += first ? 1 : 0;
+		}
+		return edges > size - components;
+	}
+
+	/**
+	 * A graph is bipartite if no vertex reaches itself by a walk of odd length. The walks are
+	 * followed in the graph of the pairs (vertex, parity of the length so far).
+	 * @param matrix
+	 * @return true if the graph is bipartite
+	 */
+	private static boolean isBipartite(int[][] matrix) {
+		int size = matrix.length;
+		int[][] doubled = new int[size * 2][size * 2];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				if (matrix[row][col] != 0) {
+					doubled[row][col + size] = 1;
+					doubled[row + size][col] = 1;
+				}
+			}
+		}
+		boolean[][] reach = closure(doubled);
+		for (int v = 0; v < size; v++) {
+			if (reach[v][v + size]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the number of edges on a shortest path between every pair of vertices.
+	 * @param matrix
+	 * @return the distances, or Integer.MAX_VALUE for a pair with no path
+	 */
+	private static int[][] distances(int[][] matrix) {
+		int size = matrix.length;
+		int[][] distance = new int[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				distance[row][col] = row == col ? 0 : matrix[row][col] != 0 ? 1 : Integer.MAX_VALUE;
+			}
+		}
+		for (int k = 0; k < size; k++) {
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					if (distance[row][k] != Integer.MAX_VALUE && distance[k][col] != Integer.MAX_VALUE) {
+						distance[row][col] = Math.min(distance[row][col], distance[row][k] + distance[k][col]);
+					}
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * Checks that a path from shortestPath is a walk of the right length between the vertices.
+	 * @param name
+	 * @param matrix
+	 * @param distance - The length of a shortest path
+	 * @param start
+	 * @param end
+	 * @param path - The path, numbered from 1
+	 */
+	private static void checkPath(String name, int[][] matrix, int distance, int start, int end, String path) {
+		if (distance == Integer.MAX_VALUE) {
+			assertEquals(name, "None", path);
+			return;
+		}
+		String[] vertices = path.split(",");
+		assertEquals(name + ", path " + path, distance + 1, vertices.length);
+		assertEquals(name, start + 1, Integer.parseInt(vertices[0]));
+		assertEquals(name, end + 1, Integer.parseInt(vertices[vertices.length - 1]));
+		for (int i = 1; i < vertices.length; i++) {
+			int from = Integer.parseInt(vertices[i - 1]) - 1;
+			int to = Integer.parseInt(vertices[i]) - 1;
+			assertTrue(name + ", path " + path, matrix[from][to] != 0);
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that PathCache evicts the least recently used path and keeps its counts.
+ * @author Gunnar Arnesen
+ *
+ */
+public class PathCacheTest {
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		PathCache cache = new PathCache(3);
+		int[] a = {0, 1};
+		int[] b = {0, 2};
+		int[] c = {0, 3};
+		assertFalse(cache.put(PathCache.key(0, 1), a));
+		assertFalse(cache.put(PathCache.key(0, 2), b));
+		assertFalse(cache.put(PathCache.key(0, 3), c));
+
+		// Using the oldest path makes the second one the oldest
+		assertSame(a, cache.get(PathCache.key(0, 1)));
+		assertTrue(cache.put(PathCache.key(0, 4), PathCache.NO_PATH));
+		assertNull(cache.get(PathCache.key(0, 2)));
+		assertSame(a, cache.get(PathCache.key(0, 1)));
+		assertSame(c, cache.get(PathCache.key(0, 3)));
+		assertSame(PathCache.NO_PATH, cache.get(PathCache.key(0, 4)));
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(4, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void replacingKeepsSize() {
+		PathCache cache = new PathCache(2);
+		cache.put(PathCache.key(1, 2), new int[] {1, 2});
+		int[] replaced = {1, 3, 2};
+		assertFalse(cache.put(PathCache.key(1, 2), replaced));
+		assertEquals(1, cache.size());
+		assertSame(replaced, cache.get(PathCache.key(1, 2)));
+	}
+
+	@Test
+	public void keysKeepOrder() {
+		assertFalse(PathCache.key(1, 2) == PathCache.key(2, 1));
+	}
+
+	@Test
+	public void matchesLinkedHashMap() {
+		// An access ordered LinkedHashMap evicts in the same order
+		int capacity = 50;
+		PathCache cache = new PathCache(capacity);
+		Map<Long, int[]> model = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+				return size() > capacity;
+			}
+		};
+		Random random = new Random(5);
+		for (int i = 0; i < 20000; i++) {
+			long key = PathCache.key(random.nextInt(10), random.nextInt(12));
+			if (random.nextBoolean()) {
+				assertSame(model.get(key), cache.get(key));
+			} else {
+				int[] path = {i};
+				boolean full = model.size() == capacity && !model.containsKey(key);
+				model.put(key, path);
+				assertEquals(full, cache.put(key, path));
+			}
+			assertEquals(model.size(), cache.size());
+		}
+	}
+
+	@Test
+	public void clearKeepsCounts() {
+		PathCache cache = new PathCache(1);
+		cache.put(PathCache.key(0, 1), PathCache.NO_PATH);
+		cache.put(PathCache.key(0, 2), PathCache.NO_PATH);
+		assertNotNull(cache.get(PathCache.key(0, 2)));
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get(PathCache.key(0, 2)));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertFalse(cache.put(PathCache.key(0, 2), PathCache.NO_PATH));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsZeroCapacity() {
+		new PathCache(0);
+	}
+
+	@Test
+	public void graphUsesCache() {
+		Graph graph = new Graph("4,0,1,0,0,1,0,1,0,0,1,0,0,0,0,0,0");
+		graph.setPathCacheSize(1);
+		assertEquals("1,2,3", graph.shortestPath(1, 3));
+		assertEquals("1,2,3", graph.shortestPath(1, 3));
+		assertEquals("None", graph.shortestPath(1, 4));
+		assertEquals(1, graph.getPathCache().getHits());
+		assertEquals(1, graph.getPathCache().getEvictions());
+	}
+
+}
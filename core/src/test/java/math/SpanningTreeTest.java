@@ -0,0 +1,86 @@
+package math;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that Kruskal's, Boruvka's and Prim's algorithms find spanning trees of the same weight.
+ * @author Gunnar Arnesen
+ *
+ */
+public class SpanningTreeTest {
+
+	@Test
+	public void sameWeights() {
+		Random random = new Random(11);
+		for (int g = 0; g < 60; g++) {
+			int size = 2 + random.nextInt(g % 2 == 0 ? 10 : 150);
+			int[][] matrix = connectedMatrix(random, size, random.nextDouble() * 4 / size, 1 + random.nextInt(g % 3 == 0 ? 3 : 1000));
+			for (int kind : new int[] {0, 2}) {
+				AdjacencyStorage storage = kind == 0 ? new SquareMatrix(matrix) : CsrMatrix.fromMatrix(matrix);
+				String name = "graph " + g + ", kind " + kind;
+				SpanningTree kruskal = MinimumSpanningForest.kruskal(new Graph(storage));
+				SpanningTree boruvka = MinimumSpanningForest.boruvka(new Graph(storage));
+				PrimsAlgorithm prim = new PrimsAlgorithm(storage);
+				SpanningTree primTree = prim.computeMinimumSpanningTree();
+
+				assertEquals(name, size - 1, kruskal.getEdgeCount());
+				assertEquals(name, size - 1, boruvka.getEdgeCount());
+				assertEquals(name, size - 1, primTree.getEdgeCount());
+				assertEquals(name, kruskal.getTotalWeight(), boruvka.getTotalWeight());
+				assertEquals(name, kruskal.getTotalWeight(), primTree.getTotalWeight());
+				assertEquals(name, kruskal.getTotalWeight(), MinimumSpanningForest.compute(new Graph(storage)).getTotalWeight());
+
+				// Stepping through Prim's algorithm ends at the same weight
+				while (prim.stepForward()) {
+					// Take the next step
+				}
+				assertEquals(name, kruskal.getTotalWeight(), prim.getCurrentWeight());
+			}
+		}
+	}
+
+	@Test
+	public void forestOfComponents() {
+		// Two triangles, each with a heavy edge
+		int[][] matrix = new int[6][6];
+		int[][] edges = {{0, 1, 1}, {1, 2, 2}, {0, 2, 5}, {3, 4, 3}, {4, 5, 4}, {3, 5, 9}};
+		for (int[] edge : edges) {
+			matrix[edge[0]][edge[1]] = matrix[edge[1]][edge[0]] = edge[2];
+		}
+		Graph graph = new Graph(new SquareMatrix(matrix));
+		assertEquals(10, MinimumSpanningForest.kruskal(graph).getTotalWeight());
+		assertEquals(10, MinimumSpanningForest.boruvka(graph).getTotalWeight());
+		assertEquals(4, MinimumSpanningForest.kruskal(graph).getEdgeCount());
+		assertEquals(3, new PrimsAlgorithm(new SquareMatrix(matrix)).computeMinimumSpanningTree().getTotalWeight());
+	}
+
+	/**
+	 * Creates a random connected graph with weighted edges: a random spanning tree and then
+	 * random extra edges.
+	 * @param random
+	 * @param size
+	 * @param density - The chance of each extra edge
+	 * @param maxWeight - The largest weight, so a small one gives many ties
+	 * @return the adjacency matrix
+	 */
+	private static int[][] connectedMatrix(Random random, int size, double density, int maxWeight) {
+		int[][] matrix = new int[size][size];
+		for (int v = 1; v < size; v++) {
+			int parent = random.nextInt(v);
+			matrix[v][parent] = matrix[parent][v] = 1 + random.nextInt(maxWeight);
+		}
+		for (int row = 0; row < size; row++) {
+			for (int col = row + 1; col < size; col++) {
+				if (matrix[row][col] == 0 && random.nextDouble() < density) {
+					matrix[row][col] = matrix[col][row] = 1 + random.nextInt(maxWeight);
+				}
+			}
+		}
+		return matrix;
+	}
+
+}
@@ -0,0 +1,308 @@
+package batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import math.Graph;
+import math.GraphAnalysis;
+import math.GraphFile;
+import math.IngestionPipeline;
+import math.ParsedGraph;
+
+/**
+ * Runs every analysis over all graphs of a file without the GUI.
+ *
+ *    java batch.BatchAnalysis <input file> [--format csv|json] [--output file] [--threads n]
+ *
+ * The input is a text file in the comma-separated graph format or a binary GraphFile. The
+ * graphs are analyzed across all cores and one row per graph is written, in the order of the
+ * file, as CSV or as JSON lines. When the run is done the throughput and the percentiles of the
+ * time per graph are printed to standard error, along with any lines that were not graphs and
+ * any records of a GraphFile that were corrupt.
+ * @author Gunnar Arnesen
+ *
+ */
+public class BatchAnalysis {
+
+	private static final String USAGE = "Usage: BatchAnalysis <input file> [--format csv|json] [--output file] [--threads n]";
+	private static final String CSV_HEADER = "line,vertices,edges,connected,has_cycle,bipartite,path_from,path_to,shortest_path,spanning_weight,micros";
+
+	/** The number of graphs of a GraphFile analyzed between writes **/
+	private static final int CHUNK = 1024;
+
+	private final boolean json;
+	private final Writer out;
+	private final int threads;
+
+	private long[] latencies = new long[1024];
+	private int count;
+	private long errors;
+
+	/**
+	 * Creates a new BatchAnalysis.
+	 * @param json - true for JSON lines, false for CSV
+	 * @param out - Where the rows are written
+	 * @param threads - The number of threads analyzing graphs
+	 */
+	public BatchAnalysis(boolean json, Writer out, int threads) {
+		this.json = json;
+		this.out = out;
+		this.threads = threads;
+	}
+
+	/**
+	 * Analyzes every graph of a file and writes a row for each.
+	 * @param file - A text file or a GraphFile
+	 * @throws IOException if the file cannot be read or the rows cannot be written
+	 */
+	public void run(Path file) throws IOException {
+		if (!json) {
+			out.write(CSV_HEADER);
+			out.write('\n');
+		}
+		try {
+			if (GraphFile.isGraphFile(file)) {
+				runGraphFile(file);
+			} else {
+				runText(file);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Analyzes the graphs of a text file on the parser threads of an IngestionPipeline.
+	 * @param file
+	 * @throws IOException
+	 */
+	private void runText(Path file) throws IOException {
+		IngestionPipeline<GraphAnalysis> pipeline = new IngestionPipeline<GraphAnalysis>(BatchAnalysis::analyze, threads, 4 * threads);
+		pipeline.run(file, new IngestionPipeline.Receiver<GraphAnalysis>() {
+
+			@Override
+			public void accept(GraphAnalysis analysis, long line) {
+				write(analysis, line);
+			}
+
+			@Override
+			public void reject(IllegalArgumentException error, long line) {
+				BatchAnalysis.this.reject(file, error);
+			}
+		});
+	}
+
+	/**
+	 * Analyzes the graphs of a GraphFile in chunks, each chunk in parallel. A corrupt record is
+	 * counted as an error and skipped, like a line of a text file that is not a graph.
+	 * @param file
+	 * @throws IOException
+	 */
+	private void runGraphFile(Path file) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try (GraphFile graphFile = GraphFile.open(file)) {
+			for (int offset = 0; offset < graphFile.getGraphCount(); offset += CHUNK) {
+				int start = offset;
+				int end = Math.min(start + CHUNK, graphFile.getGraphCount());
+				// Each graph gives its GraphAnalysis, or the exception that rejected it
+				Object[] chunk = pool.submit(() -> IntStream.range(start, end).parallel().mapToObj(i -> {
+					try {
+						return (Object) analyze(graphFile.read(i));
+					} catch (IOException | IllegalArgumentException e) {
+						return e;
+					}
+				}).toArray()).get();
+				for (int i = 0; i < chunk.length; i++) {
+					if (chunk[i] instanceof Exception) {
+						reject(file, (Exception) chunk[i]);
+					} else {
+						write((GraphAnalysis) chunk[i], start + i + 1);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("The analysis of " + file + " was interrupted.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Counts a graph that could not be analyzed and prints why.
+	 * @param file
+	 * @param error
+	 */
+	private void reject(Path file, Exception error) {
+		errors++;
+		System.err.println(file + ": " + error.getMessage());
+	}
+
+	/**
+	 * Runs every analysis of a parsed graph.
+	 * @param parsed
+	 * @return the GraphAnalysis
+	 */
+	private static GraphAnalysis analyze(ParsedGraph parsed) {
+		return GraphAnalysis.of(new Graph(parsed.getStorage()), parsed.getVertexPair());
+	}
+
+	/**
+	 * Writes the row of a graph and keeps the time it took.
+	 * @param analysis
+	 * @param line - The line of the graph, or its index in a GraphFile starting at 1
+	 */
+	private void write(GraphAnalysis analysis, long line) {
+		if (count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, count * 2);
+		}
+		latencies[count++] = analysis.getNanos();
+
+		int[] pair = analysis.getVertexPair();
+		String path = analysis.getShortestPath();
+		StringBuilder row = new StringBuilder();
+		if (json) {
+			row.append("{\"line\":").append(line);
+			row.append(",\"vertices\":").append(analysis.getVertices());
+			row.append(",\"edges\":").append(analysis.getEdges());
+			row.append(",\"connected\":").append(analysis.isConnected());
+			row.append(",\"has_cycle\":").append(analysis.hasCycle());
+			row.append(",\"bipartite\":").append(analysis.isBipartite());
+			row.append(",\"vertex_pair\":").append(pair == null ? "null" : "[" + pair[0] + "," + pair[1] + "]");
+			row.append(",\"shortest_path\":").append(path == null ? "null" : "\"" + path + "\"");
+			row.append(",\"spanning_weight\":").append(analysis.getSpanningWeight());
+			row.append(",\"micros\":").append(analysis.getNanos() / 1000);
+			row.append("}\n");
+		} else {
+			row.append(line).append(',');
+			row.append(analysis.getVertices()).append(',');
+			row.append(analysis.getEdges()).append(',');
+			row.append(analysis.isConnected()).append(',');
+			row.append(analysis.hasCycle()).append(',');
+			row.append(analysis.isBipartite()).append(',');
+			row.append(pair == null ? "" : pair[0]).append(',');
+			row.append(pair == null ? "" : pair[1]).append(',');
+			row.append(path == null ? "" : "\"" + path + "\"").append(',');
+			row.append(analysis.getSpanningWeight()).append(',');
+			row.append(analysis.getNanos() / 1000).append('\n');
+		}
+		try {
+			out.write(row.toString());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Gets the summary of the run: the number of graphs, the throughput and the percentiles of
+	 * the time per graph.
+	 * @param elapsedNanos - The time the whole run took
+	 * @return the summary
+	 */
+	public String summary(long elapsedNanos) {
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return String.format("Analyzed %d graphs (%d errors) in %.3f s, %.1f graphs/s on %d threads%n"
+				+ "Time per graph: p50 %s, p90 %s, p99 %s, p99.9 %s, max %s",
+				count, errors, elapsedNanos / 1e9, elapsedNanos <= 0 ? 0 : count * 1e9 / elapsedNanos, threads,
+				micros(percentile(sorted, 0.5)), micros(percentile(sorted, 0.9)), micros(percentile(sorted, 0.99)),
+				micros(percentile(sorted, 0.999)), micros(count == 0 ? 0 : sorted[count - 1]));
+	}
+
+	/**
+	 * Gets a percentile of sorted values by the nearest rank.
+	 * @param sorted
+	 * @param fraction - The percentile as a fraction, such as 0.99
+	 * @return the value, or 0 if there are none
+	 */
+	private static long percentile(long[] sorted, double fraction) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(fraction * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 * Formats nanoseconds as microseconds.
+	 * @param nanos
+	 * @return the formatted time
+	 */
+	private static String micros(long nanos) {
+		return String.format("%.1f us", nanos / 1e3);
+	}
+
+	/**
+	 * Runs the batch analysis from the command line.
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		Path input = null;
+		Path output = null;
+		boolean json = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "--format":
+					String format = args[++i];
+					if (!format.equals("csv") && !format.equals("json")) {
+						throw new IllegalArgumentException("Unknown format " + format);
+					}
+					json = format.equals("json");
+					break;
+				case "--output":
+					output = Paths.get(args[++i]);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(args[++i]);
+					if (threads < 1) {
+						throw new IllegalArgumentException("There needs to be at least one thread.");
+					}
+					break;
+				default:
+					if (input != null || args[i].startsWith("--")) {
+						throw new IllegalArgumentException("Unexpected argument " + args[i]);
+					}
+					input = Paths.get(args[i]);
+				}
+			}
+			if (input == null) {
+				throw new IllegalArgumentException("No input file.");
+			}
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing value for " + args[args.length - 1] : e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		long start = System.nanoTime();
+		try (Writer out = output == null ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+				: Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+			BatchAnalysis batch = new BatchAnalysis(json, out, threads);
+			batch.run(input);
+			out.flush();
+			System.err.println(batch.summary(System.nanoTime() - start));
+		}
+	}
+
+}
@@ -8,16 +8,32 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.stream.Stream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import math.Graph;
+import math.GraphAnalysis;
+import math.GraphFile;
+import math.GraphParser;
+import math.IngestionPipeline;
+import math.ParsedGraph;
+import utils.AsyncLogger.Level;
 import utils.Utils;
 
 /**
@@ -30,6 +46,13 @@ import utils.Utils;
 @SuppressWarnings("serial")
 public class GraphInfoPanel extends JPanel {
 
+	/** How long an analysis may run before it is cancelled, unless setTimeout is called **/
+	public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+	private static final int PROGRESS_MILLIS = 100;
+	/** The analyses the panel shows; the spanning forest is left out **/
+	private static final EnumSet<GraphAnalysis.Step> STEPS = EnumSet.of(GraphAnalysis.Step.CONNECTED, GraphAnalysis.Step.CYCLE,
+			GraphAnalysis.Step.BIPARTITE, GraphAnalysis.Step.SHORTEST_PATH);
+
 	private final Point GRAPH_CENTER = new Point(GraphProjects.GRAPH_SIZE / 2, GraphProjects.GRAPH_SIZE / 2);
 	private ArrayList<Graph> graphs;
 	private HashMap<Graph, int[]> graphToVertexPair;
@@ -37,6 +60,14 @@ public class GraphInfoPanel extends JPanel {
 	private boolean drawGraph;
 	private boolean createdOnce;
 	
+	private GraphParser parser;
+
+	/** The analyses run on background threads, by the index of their graph **/
+	private ExecutorService analysisExecutor;
+	private HashMap<Integer, AnalysisTask> analyses;
+	private Timer progressTimer;
+	private long timeoutMillis;
+
 	private JPanel arrowBar;
 	final JLabel title;
 	final JLabel data;
@@ -47,6 +78,15 @@ public class GraphInfoPanel extends JPanel {
 	public GraphInfoPanel() {
 		graphs = new ArrayList<Graph>();
 		graphToVertexPair = new HashMap<Graph, int[]>();
+		parser = new GraphParser();
+		analyses = new HashMap<Integer, AnalysisTask>();
+		analysisExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+			Thread thread = new Thread(runnable, "Graph analysis");
+			thread.setDaemon(true);
+			return thread;
+		});
+		progressTimer = new Timer(PROGRESS_MILLIS, e -> checkAnalyses());
+		timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
 		currentGraphIndex = 0;
 		drawGraph = false;
 		this.setLayout(new BorderLayout());
@@ -65,6 +105,9 @@ public class GraphInfoPanel extends JPanel {
 		// The panel should only be built once. Adding more graphs can be done without destroying the panel.
 		if (createdOnce) {
 			return;
+		} else if (graphs.isEmpty()) {
+			Utils.log(Level.WARN, "P1", "There are no graphs to show.");
+			return;
 		}
 		createdOnce = true;
 		
@@ -111,28 +154,169 @@ public class GraphInfoPanel extends JPanel {
 	
 	/**
 	 * Resets the data when the right/left arrow is clicked.
+	 * 
+	 * The analyses of the graph are run on a background thread so a large graph does not freeze
+	 * the UI. The graphs on either side are analyzed ahead of time, and analyses of graphs that
+	 * are no longer next to the current one are cancelled.
 	 */
 	private void updateData() {
+		if (graphs.isEmpty()) {
+			return;
+		}
+		title.setText("Graph " + (currentGraphIndex + 1));
+		int previous = currentGraphIndex == 0 ? graphs.size() - 1 : currentGraphIndex - 1;
+		int next = currentGraphIndex == graphs.size() - 1 ? 0 : currentGraphIndex + 1;
+
+		// Cancel the analyses the user navigated away from
+		Iterator<Map.Entry<Integer, AnalysisTask>> it = analyses.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Integer, AnalysisTask> entry = it.next();
+			int index = entry.getKey();
+			if (!entry.getValue().isDone() && index != currentGraphIndex && index != previous && index != next) {
+				entry.getValue().cancel(true);
+				it.remove();
+			}
+		}
+
+		// Analyze the current graph first, then prefetch its neighbors
+		analyze(currentGraphIndex);
+		analyze(next);
+		analyze(previous);
+		showAnalysis();
+	}
+
+	/**
+	 * Submits the analyses of a graph, unless they were already submitted.
+	 * @param index
+	 */
+	private void analyze(int index) {
+		if (analyses.containsKey(index)) {
+			return;
+		}
+		Graph graph = graphs.get(index);
+		AnalysisTask task = new AnalysisTask(index, graph, graphToVertexPair.get(graph));
+		analyses.put(index, task);
+		analysisExecutor.execute(task);
+		progressTimer.start();
+	}
+
+	/**
+	 * Shows the analysis of the current graph, or its progress if it is still running.
+	 */
+	private void showAnalysis() {
 		// Formating for the data to be displayed.
 		String FORMAT = "Connected: %s      Has Cycle: %s      Bipartite: %s";
 		String FORMAT_PATH = "      Path from %d to %d: %s";
-		
-		// Grab the data of the graph and set it on the screen.
-		title.setText("Graph " + (currentGraphIndex + 1));
-		Graph graph = graphs.get(currentGraphIndex);
-		String text = String.format(FORMAT, graph.is_connected(), graph.has_cycle(), graph.is_bipartite());
-		if (graphToVertexPair.get(graph) != null) {
-			int[] vertexPair = graphToVertexPair.get(graph);
-			data.setText(text + String.format(FORMAT_PATH, vertexPair[0], vertexPair[1], graph.shortestPath(vertexPair[0], vertexPair[1])));
+
+		AnalysisTask task = analyses.get(currentGraphIndex);
+		if (task == null) {
+			data.setText("");
+		} else if (!task.isDone()) {
+			long started = task.started.get();
+			double seconds = started == 0 ? 0 : (System.nanoTime() - started) / 1e9;
+			data.setText(String.format("Analyzing... %d of %d done (%.1f s)", task.progress.get(), STEPS.size(), seconds));
+		} else if (task.isCancelled()) {
+			data.setText(task.timedOut ? "The analysis timed out after " + timeoutMillis / 1000.0 + " s" : "The analysis was cancelled");
 		} else {
-			data.setText(text);
+			try {
+				GraphAnalysis analysis = task.get();
+				String text = String.format(FORMAT, analysis.isConnected(), analysis.hasCycle(), analysis.isBipartite());
+				int[] vertexPair = analysis.getVertexPair();
+				if (vertexPair != null) {
+					text += String.format(FORMAT_PATH, vertexPair[0], vertexPair[1], analysis.getShortestPath());
+				}
+				data.setText(text);
+			} catch (InterruptedException | ExecutionException e) {
+				data.setText("The analysis failed: " + (e.getCause() == null ? e : e.getCause()).getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Called by the progress timer. Cancels the analyses that ran past the timeout, updates
+	 * the progress of the current graph, and stops the timer once nothing is running.
+	 */
+	private void checkAnalyses() {
+		boolean running = false;
+		for (AnalysisTask task : analyses.values()) {
+			if (task.isDone()) {
+				continue;
+			}
+			long started = task.started.get();
+			if (started != 0 && System.nanoTime() - started > timeoutMillis * 1000000) {
+				Utils.log(Level.WARN, "P1", "The analysis of graph " + (task.index + 1) + " timed out.");
+				task.timedOut = true;
+				task.cancel(true);
+			} else {
+				running = true;
+			}
+		}
+		if (!running) {
+			progressTimer.stop();
+		}
+		if (drawGraph) {
+			showAnalysis();
+		}
+	}
+
+	/**
+	 * Sets how long an analysis may run before it is cancelled.
+	 * @param timeoutMillis
+	 */
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * The analyses of one graph, run on a background thread. When they are done the panel is
+	 * updated on the event dispatch thread.
+	 *
+	 * The analyses check for an interrupt once per vertex, so a cancelled or timed out task
+	 * stops soon after it is cancelled, but it can still be finishing when the user comes back
+	 * to its graph and a new task is submitted. A Graph is not safe to analyze from two threads
+	 * at once, so the tasks of a graph take turns by locking it.
+	 */
+	private class AnalysisTask extends FutureTask<GraphAnalysis> {
+
+		private final int index;
+		private final AtomicInteger progress;
+		/** When the task got the graph and started analyzing it, or 0 before that **/
+		private final AtomicLong started;
+		private boolean timedOut;
+
+		AnalysisTask(int index, Graph graph, int[] vertexPair) {
+			this(index, graph, vertexPair, new AtomicInteger(), new AtomicLong());
+		}
+
+		private AnalysisTask(int index, Graph graph, int[] vertexPair, AtomicInteger progress, AtomicLong started) {
+			super(() -> {
+				synchronized (graph) {
+					if (Thread.currentThread().isInterrupted()) {
+						throw new CancellationException("The analysis was cancelled before it started.");
+					}
+					started.set(System.nanoTime());
+					return GraphAnalysis.of(graph, vertexPair, STEPS, progress::set);
+				}
+			});
+			this.index = index;
+			this.progress = progress;
+			this.started = started;
+		}
+
+		@Override
+		protected void done() {
+			SwingUtilities.invokeLater(() -> {
+				if (analyses.get(index) == this && index == currentGraphIndex && drawGraph) {
+					showAnalysis();
+				}
+			});
 		}
 	}
 
 	@Override
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
-		if (drawGraph) {
+		if (drawGraph && !graphs.isEmpty()) {
 			Utils.drawGraph(g, graphs.get(currentGraphIndex), GRAPH_CENTER);
 		}
 	}
@@ -140,49 +324,135 @@ public class GraphInfoPanel extends JPanel {
 	/**
 	 * Add the graph sent to the list of graphs.
 	 * 
-	 * First the method checks to see if two extra vertices are appended for the shortedPath method.
-	 * If there is a vertex pair, remove it from the graph representation and map the pair to the graph
-	 * for later.
+	 * The parser reads the two extra vertices for the shortedPath method along with the matrix.
+	 * If there is a vertex pair, map the pair to the graph for later.
 	 * @param graphRepresentation
 	 */
 	public boolean input(String graphRepresentation) {
-		Utils.log("P1", "Parsing graph...");
+		Utils.log(Level.DEBUG, "P1", "Parsing graph...");
 		try {
-			// Get the values by splitting at the comma.
-			String [] values = graphRepresentation.split(",");
-			int numVertices = Integer.parseInt(values[0]);
-			// Check if this representation has two extra vertices appended
-			int[] vertexPair = null;
-			if (numVertices * numVertices + 3 == values.length) {
-				graphRepresentation = String.join(",", Arrays.copyOf(values, values.length-2));
-				vertexPair = new int[] {Integer.parseInt(values[values.length - 2]), Integer.parseInt(values[values.length - 1])};
+			ParsedGraph parsed = parser.parse(graphRepresentation);
+			if (parsed == null) {
+				throw new IllegalArgumentException("The graph representation is blank.");
 			}
-			// Try to create a new graph, add it to the list, and map it.
-			Graph graph = new Graph(graphRepresentation);
-			graphs.add(graph);
-			graphToVertexPair.put(graph, vertexPair);
-		} catch (Exception e) {
-			Utils.log("Error", "Could not create a graph for (" + graphRepresentation + ")");
+			add(parsed);
+		} catch (IllegalArgumentException e) {
+			Utils.log(Level.ERROR, "Error", "Could not create a graph for (" + graphRepresentation + "): " + e.getMessage());
 			return false;
 		}
-		Utils.log("P1", "Parsing complete!");
+		Utils.log(Level.DEBUG, "P1", "Parsing complete!");
 		return true;
 	}
 
 	/**
-	 * Read each line in the input file and send it to the String input method.
-	 * @param f
+	 * Read each line in the input file and add the graph on it. The lines are parsed in parallel
+	 * by an IngestionPipeline and added in the order of the file. Blank lines are skipped, and a
+	 * line that is not a valid graph is logged with its position without stopping the rest of the
+	 * file. A binary GraphFile is opened instead of parsed.
+	 *
+	 * This blocks until the whole file is read, so it is meant to run on a background thread,
+	 * see load. Each graph is handed to the event dispatch thread as soon as it is accepted, and
+	 * the panel is built with the first one.
+	 * @param file
+	 * @return true if at least one graph was accepted, false otherwise
 	 */
 	public boolean input(File file) {
 		Utils.log("P1", "Reading file...");
-		try (Stream<String> lines = Files.lines(file.toPath())) {
-			lines.forEach(this::input);
+		if (GraphFile.isGraphFile(file.toPath())) {
+			return inputGraphFile(file);
+		}
+		IngestionPipeline<ParsedGraph> pipeline = new IngestionPipeline<ParsedGraph>(parsed -> parsed);
+		AtomicInteger accepted = new AtomicInteger();
+		try {
+			pipeline.run(file.toPath(), new IngestionPipeline.Receiver<ParsedGraph>() {
+
+				@Override
+				public void accept(ParsedGraph parsed, long line) {
+					accepted.incrementAndGet();
+					show(parsed);
+				}
+
+				@Override
+				public void reject(IllegalArgumentException error, long line) {
+					Utils.log(Level.ERROR, "Error", "Could not create a graph in " + file.getPath() + ". " + error.getMessage());
+				}
+			});
 		} catch (IOException e) {
-			Utils.log("Error", "Could not read the input file: " + file.getPath());
+			Utils.log(Level.ERROR, "Error", "Could not read the input file: " + file.getPath());
 			return false;
+		} catch (RuntimeException e) {
+			// The line that failed was already rejected, so keep the graphs of every other line
+			Utils.log(Level.ERROR, "Error", "Could not create every graph in " + file.getPath() + ". " + e);
 		}
+		Utils.log("P1", pipeline.toString());
 		Utils.log("P1", "File read complete!");
-		return true;
+		return accepted.get() > 0;
+	}
+
+	/**
+	 * Add every graph in a binary GraphFile. The graphs are read from the mapped file, so
+	 * nothing is parsed or copied. Like input, this blocks until every record is checked.
+	 * @param file
+	 * @return true if at least one graph was accepted, false otherwise
+	 */
+	private boolean inputGraphFile(File file) {
+		int accepted = 0;
+		try (GraphFile graphFile = GraphFile.open(file.toPath())) {
+			for (int i = 0; i < graphFile.getGraphCount(); i++) {
+				try {
+					show(graphFile.read(i));
+					accepted++;
+				} catch (IOException | IllegalArgumentException e) {
+					Utils.log(Level.ERROR, "Error", "Could not create a graph in " + file.getPath() + ". " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			Utils.log(Level.ERROR, "Error", "Could not read the graph file: " + file.getPath() + ". " + e.getMessage());
+			return false;
+		}
+		Utils.log("P1", "File read complete!");
+		return accepted > 0;
+	}
+
+	/**
+	 * Reads a file on a background thread so the UI stays responsive while it is parsed. The
+	 * graphs show up in the panel as they are accepted.
+	 * @param file
+	 */
+	public void load(File file) {
+		Thread loader = new Thread(() -> {
+			if (!input(file)) {
+				Utils.log("P1", "Halting graph creation.");
+			}
+		}, "Graph input");
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	/**
+	 * Adds a graph on the event dispatch thread, building the panel if it is the first one.
+	 * @param parsed
+	 */
+	private void show(ParsedGraph parsed) {
+		SwingUtilities.invokeLater(() -> {
+			add(parsed);
+			create();
+		});
+	}
+
+	/**
+	 * Creates a graph from a parsed line, adds it to the list, and maps it to its vertex pair.
+	 * @param parsed
+	 */
+	private void add(ParsedGraph parsed) {
+		Graph graph = new Graph(parsed.getStorage());
+		int[] vertexPair = parsed.getVertexPair();
+		if (vertexPair != null && !(GraphAnalysis.isVertex(graph, vertexPair[0]) && GraphAnalysis.isVertex(graph, vertexPair[1]))) {
+			Utils.log(Level.ERROR, "Error", "Graph " + (graphs.size() + 1) + " has the vertex pair (" + vertexPair[0] + ", " + vertexPair[1]
+					+ "), which is not in the graph.");
+		}
+		graphs.add(graph);
+		graphToVertexPair.put(graph, vertexPair);
 	}
 	
 	/**
@@ -196,15 +466,12 @@ public class GraphInfoPanel extends JPanel {
 			public void onEnter(String data) {
 				File inputFile = new File(data);
 				if (inputFile.exists()) {
-					if (!input(inputFile)) {
-						Utils.log("P1", "Halting graph creation.");
-						return;
-					}
-				} else {
-					if (!input(data)) {
-						Utils.log("P1", "Halting graph creation.");
-						return;
-					}
+					load(inputFile);
+					return;
+				}
+				if (!input(data)) {
+					Utils.log("P1", "Halting graph creation.");
+					return;
 				}
 				create();
 			}
@@ -8,15 +8,20 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
+import math.GraphFile;
+import math.GraphParser;
+import math.IngestionPipeline;
+import math.ParsedGraph;
 import math.PrimsAlgorithm;
+import utils.AsyncLogger.Level;
 import utils.Utils;
 
 /**
@@ -33,6 +38,7 @@ public class WeightedGraphPanel extends JPanel {
 
 	private final String TAG = "Prim Graphics";
 	private ArrayList<PrimsAlgorithm> graphs;
+	private GraphParser parser;
 	private int currentGraphIndex;
 	private boolean drawGraph;
 	private boolean createdOnce;
@@ -47,6 +53,7 @@ public class WeightedGraphPanel extends JPanel {
 	 */
 	public WeightedGraphPanel() {
 		graphs = new ArrayList<PrimsAlgorithm>();
+		parser = new GraphParser();
 		currentGraphIndex = 0;
 		drawGraph = false;
 
@@ -143,33 +150,135 @@ public class WeightedGraphPanel extends JPanel {
 	 * @return true if parsed, false otherwise
 	 */
 	public boolean input(String graphRepresentation) {
-		Utils.log(TAG, "Parsing graph...");
+		Utils.log(Level.DEBUG, TAG, "Parsing graph...");
 		try {
-			PrimsAlgorithm graph = new PrimsAlgorithm(graphRepresentation);
-			graphs.add(graph);
-		} catch (Exception e) {
-			Utils.log("Error", "Could not create a graph for (" + graphRepresentation + ")");
+			add(parser.parse(graphRepresentation));
+		} catch (IllegalArgumentException e) {
+			Utils.log(Level.ERROR, "Error", "Could not create a graph for (" + graphRepresentation + "): " + e.getMessage());
 			return false;
 		}
-		Utils.log(TAG, "Parsing complete!");
+		Utils.log(Level.DEBUG, TAG, "Parsing complete!");
 		return true;
 	}
 
 	/**
-	 * Read each line in the input file and send it to the String input method.
+	 * Read each line in the input file and add the graph on it. The lines are parsed in parallel
+	 * by an IngestionPipeline and added in the order of the file. Blank lines are skipped, and a
+	 * line that is not a valid graph is logged with its position without stopping the rest of the
+	 * file. A binary GraphFile is opened instead of parsed.
+	 *
+	 * This blocks until the whole file is read, so it is meant to run on a background thread,
+	 * see load. Each graph is handed to the event dispatch thread as soon as it is accepted, and
+	 * the panel is built with the first one.
 	 * @param file
-	 * @return true if parsed, false otherwise
+	 * @return true if at least one graph was accepted, false otherwise
 	 */
 	public boolean input(File file) {
 		Utils.log(TAG, "Reading file...");
-		try (Stream<String> lines = Files.lines(file.toPath())) {
-			lines.forEach(this::input);
+		if (GraphFile.isGraphFile(file.toPath())) {
+			return inputGraphFile(file);
+		}
+		IngestionPipeline<PrimsAlgorithm> pipeline = new IngestionPipeline<PrimsAlgorithm>(WeightedGraphPanel::build);
+		AtomicInteger accepted = new AtomicInteger();
+		try {
+			pipeline.run(file.toPath(), new IngestionPipeline.Receiver<PrimsAlgorithm>() {
+
+				@Override
+				public void accept(PrimsAlgorithm graph, long line) {
+					accepted.incrementAndGet();
+					show(graph);
+				}
+
+				@Override
+				public void reject(IllegalArgumentException error, long line) {
+					Utils.log(Level.ERROR, "Error", "Could not create a graph in " + file.getPath() + ". " + error.getMessage());
+				}
+			});
 		} catch (IOException e) {
-			Utils.log("Error", "Could not read the input file: " + file.getPath());
+			Utils.log(Level.ERROR, "Error", "Could not read the input file: " + file.getPath());
 			return false;
+		} catch (RuntimeException e) {
+			// The line that failed was already rejected, so keep the graphs of every other line
+			Utils.log(Level.ERROR, "Error", "Could not create every graph in " + file.getPath() + ". " + e);
 		}
+		Utils.log(TAG, pipeline.toString());
 		Utils.log(TAG, "File read complete!");
-		return true;
+		return accepted.get() > 0;
+	}
+
+	/**
+	 * Add every graph in a binary GraphFile. The graphs are read from the mapped file, so
+	 * nothing is parsed or copied. Like input, this blocks until every record is checked.
+	 * @param file
+	 * @return true if at least one graph was accepted, false otherwise
+	 */
+	private boolean inputGraphFile(File file) {
+		int accepted = 0;
+		try (GraphFile graphFile = GraphFile.open(file.toPath())) {
+			for (int i = 0; i < graphFile.getGraphCount(); i++) {
+				try {
+					show(build(graphFile.read(i)));
+					accepted++;
+				} catch (IOException | IllegalArgumentException e) {
+					Utils.log(Level.ERROR, "Error", "Could not create a graph in " + file.getPath() + ". " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			Utils.log(Level.ERROR, "Error", "Could not read the graph file: " + file.getPath() + ". " + e.getMessage());
+			return false;
+		}
+		Utils.log(TAG, "File read complete!");
+		return accepted > 0;
+	}
+
+	/**
+	 * Reads a file on a background thread so the UI stays responsive while it is parsed. The
+	 * graphs show up in the panel as they are accepted.
+	 * @param file
+	 */
+	public void load(File file) {
+		Thread loader = new Thread(() -> {
+			if (!input(file)) {
+				Utils.log(TAG, "Halting graph creation.");
+			}
+		}, "Graph input");
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	/**
+	 * Adds a weighted graph on the event dispatch thread, building the panel if it is the
+	 * first one.
+	 * @param graph
+	 */
+	private void show(PrimsAlgorithm graph) {
+		SwingUtilities.invokeLater(() -> {
+			graphs.add(graph);
+			create();
+		});
+	}
+
+	/**
+	 * Creates a weighted graph from a parsed line and adds it to the list.
+	 * @param parsed
+	 */
+	private void add(ParsedGraph parsed) {
+		graphs.add(build(parsed));
+	}
+
+	/**
+	 * Creates a weighted graph from a parsed line. Prim's algorithm has no use for a vertex
+	 * pair, so lines with one are rejected.
+	 * @param parsed
+	 * @return the weighted graph
+	 */
+	private static PrimsAlgorithm build(ParsedGraph parsed) {
+		if (parsed == null) {
+			throw new IllegalArgumentException("The graph representation is blank.");
+		} else if (parsed.getVertexPair() != null) {
+			throw new IllegalArgumentException("Line " + parsed.getLine() + " has a vertex pair, which Prim's algorithm does not use.");
+		}
+		return new PrimsAlgorithm(parsed.getStorage());
 	}
 
 	/**
@@ -183,15 +292,12 @@ public class WeightedGraphPanel extends JPanel {
 			public void onEnter(String data) {
 				File inputFile = new File(data);
 				if (inputFile.exists()) {
-					if (!input(inputFile)) {
-						Utils.log(TAG, "Halting graph creation.");
-						return;
-					}
-				} else {
-					if (!input(data)) {
-						Utils.log(TAG, "Halting graph creation.");
-						return;
-					}
+					load(inputFile);
+					return;
+				}
+				if (!input(data)) {
+					Utils.log(TAG, "Halting graph creation.");
+					return;
 				}
 				create();
 			}
@@ -0,0 +1,130 @@
+package math;
+
+/**
+ * The storage behind the adjacency matrix of a Graph.
+ *
+ * An entry greater than 0 at (row, col) is an edge from row to col, its value being the
+ * weight of the edge. Implementations differ in how the entries are laid out in memory:
+ *    - SquareMatrix keeps every entry in a 2D array (dense weighted graphs)
+ *    - BitMatrix keeps one bit per entry (dense unweighted graphs)
+ *    - CsrMatrix keeps only the non-zero entries of each row (sparse graphs)
+ * @author Gunnar Arnesen
+ *
+ */
+public interface AdjacencyStorage {
+
+	/** Graphs with fewer vertices than this are always stored densely. **/
+	int SPARSE_MIN_VERTICES = 64;
+
+	/** Graphs with at most this fraction of non-zero entries are stored sparsely. **/
+	double SPARSE_MAX_DENSITY = 0.25;
+
+	/**
+	 * Gets the number of vertices (rows) in the storage.
+	 * @return the size
+	 */
+	int getSize();
+
+	/**
+	 * Gets the value at an entry in the matrix.
+	 * @param row
+	 * @param col
+	 * @return the value
+	 */
+	int get(int row, int col);
+
+	/**
+	 * Sets a value at the specified entry.
+	 * @param row
+	 * @param col
+	 * @param val
+	 */
+	void set(int row, int col, int val);
+
+	/**
+	 * Gets the number of vertices adjacent to the given vertex.
+	 * @param vertex
+	 * @return the degree of the vertex
+	 */
+	int degree(int vertex);
+
+	/**
+	 * Writes the vertices adjacent to the given vertex, in ascending order, to the sent array.
+	 * If weights is not null, the weight of each edge is written to it at the same index.
+	 * @param vertex
+	 * @param into - An array with room for at least degree(vertex) values
+	 * @param weights - An array with room for at least degree(vertex) values, or null
+	 * @return the number of adjacent vertices written
+	 */
+	int neighbors(int vertex, int[] into, int[] weights);
+
+	/**
+	 * Writes the vertices adjacent to the given vertex, in ascending order, to the sent array.
+	 * @param vertex
+	 * @param into - An array with room for at least degree(vertex) values
+	 * @return the number of adjacent vertices written
+	 */
+	default int neighbors(int vertex, int[] into) {
+		return neighbors(vertex, into, null);
+	}
+
+	/**
+	 * Gets the number of entries greater than 0. For an undirected graph this is twice the
+	 * number of edges (self loops are counted once).
+	 * @return the number of edge entries
+	 */
+	long getEntryCount();
+
+	/**
+	 * Removes all edges that are coming off the given vertex, in both directions.
+	 * @param vertex
+	 * @return the number of edges removed
+	 */
+	int disconnect(int vertex);
+
+	/**
+	 * Gets the number of times the storage was changed. Every call to set or disconnect adds
+	 * to it, so a result computed from the storage is still valid as long as this is the same.
+	 * @return the modification count
+	 */
+	long getModCount();
+
+	/**
+	 * Creates a deep copy of this storage.
+	 * @return the copy
+	 */
+	AdjacencyStorage copy();
+
+	/**
+	 * Gets this storage as a dense SquareMatrix. Storages that already are a SquareMatrix
+	 * return themselves, all others return a new copy.
+	 * @return the SquareMatrix
+	 */
+	SquareMatrix toSquareMatrix();
+
+	/**
+	 * Picks the storage for the sent matrix by its density. Large graphs with few edges are
+	 * stored in a CsrMatrix so memory scales with the number of edges. Of the others, graphs
+	 * that only hold 0 and 1 are kept in a BitMatrix and weighted ones in a SquareMatrix.
+	 * @param matrix - The 2D array of values
+	 * @return the storage holding the values
+	 */
+	static AdjacencyStorage forMatrix(int[][] matrix) {
+		int size = matrix.length;
+		long nonZero = 0;
+		boolean weighted = false;
+		for (int[] row : matrix) {
+			for (int val : row) {
+				if (val != 0) {
+					nonZero++;
+					weighted |= val != 1;
+				}
+			}
+		}
+		if (CsrMatrix.suits(size, nonZero)) {
+			return CsrMatrix.fromMatrix(matrix);
+		}
+		return weighted ? new SquareMatrix(matrix) : BitMatrix.fromMatrix(matrix);
+	}
+
+}
@@ -0,0 +1,236 @@
+package math;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The distances between every pair of vertices in a Graph.
+ *
+ * One BFS is run from every vertex, with the sources split across the threads of a
+ * ForkJoinPool. Each row of distances is stored in the narrowest primitive type that fits its
+ * largest distance: bytes while it is at most 127, shorts while it is at most 32767 and ints
+ * beyond that. Unreachable vertices are stored as -1. The eccentricity of every vertex is
+ * taken from the same BFS, which gives the diameter and radius of the graph for free.
+ * @author Gunnar Arnesen
+ *
+ */
+public class AllPairsShortestPaths {
+
+	/** Eccentricity of a vertex that cannot reach every other vertex **/
+	public static final int INFINITE = Integer.MAX_VALUE;
+
+	private AdjacencyStorage am;
+	private int size;
+	/** Only one of these is set for each row **/
+	private byte[][] byteRows;
+	private short[][] shortRows;
+	private int[][] intRows;
+	private int[] eccentricity;
+	/** The thread that asked for the distances, checked for an interrupt before each source **/
+	private Thread caller;
+
+	/**
+	 * Creates an empty AllPairsShortestPaths to be filled by compute.
+	 * @param am
+	 */
+	private AllPairsShortestPaths(AdjacencyStorage am) {
+		this.am = am;
+		this.size = am.getSize();
+		this.byteRows = new byte[size][];
+		this.shortRows = new short[size][];
+		this.intRows = new int[size][];
+		this.eccentricity = new int[size];
+	}
+
+	/**
+	 * Computes the distances between every pair of vertices on the common ForkJoinPool.
+	 * @param graph
+	 * @return the AllPairsShortestPaths of the graph
+	 */
+	public static AllPairsShortestPaths compute(Graph graph) {
+		return compute(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Computes the distances between every pair of vertices on the sent ForkJoinPool.
+	 * @param graph
+	 * @param pool - The pool that runs the BFS of each source
+	 * @return the AllPairsShortestPaths of the graph
+	 */
+	public static AllPairsShortestPaths compute(Graph graph, ForkJoinPool pool) {
+		AllPairsShortestPaths paths = new AllPairsShortestPaths(graph.getStorage());
+		paths.caller = Thread.currentThread();
+		int batch = Math.max(1, paths.size / (pool.getParallelism() * 8));
+		pool.invoke(paths.new SourceRange(0, paths.size, batch));
+		return paths;
+	}
+
+	/**
+	 * A range of sources that is split in half until it is small enough to search directly.
+	 */
+	@SuppressWarnings("serial")
+	private class SourceRange extends RecursiveAction {
+		int from;
+		int to;
+		int batch;
+		public SourceRange(int from, int to, int batch) {
+			this.from = from;
+			this.to = to;
+			this.batch = batch;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= batch) {
+				searchSources(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SourceRange(from, middle, batch), new SourceRange(middle, to, batch));
+		}
+	}
+
+	/**
+	 * Runs a BFS from each source in the range and stores its row. The buffers are shared by
+	 * all the sources of the range.
+	 * @param from - The first source
+	 * @param to - One past the last source
+	 */
+	private void searchSources(int from, int to) {
+		int[] distance = new int[size];
+		int[] queue = new int[size];
+		int[] adjacent = new int[size];
+		for (int source = from; source < to; source++) {
+			GraphAnalysis.checkInterrupted(caller);
+			Arrays.fill(distance, -1);
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = source;
+			distance[source] = 0;
+			while (head < tail) {
+				int vertex = queue[head++];
+				int count = am.neighbors(vertex, adjacent);
+				for (int i = 0; i < count; i++) {
+					if (distance[adjacent[i]] < 0) {
+						distance[adjacent[i]] = distance[vertex] + 1;
+						queue[tail++] = adjacent[i];
+					}
+				}
+			}
+
+			// The last vertex queued is the farthest one
+			int farthest = distance[queue[tail - 1]];
+			eccentricity[source] = tail == size ? farthest : INFINITE;
+			storeRow(source, distance, farthest);
+		}
+	}
+
+	/**
+	 * Stores a row of distances in the narrowest type that fits its largest distance.
+	 * @param source
+	 * @param distance
+	 * @param farthest - The largest distance in the row
+	 */
+	private void storeRow(int source, int[] distance, int farthest) {
+		if (farthest <= Byte.MAX_VALUE) {
+			byte[] row = new byte[size];
+			for (int i = 0; i < size; i++) {
+				row[i] = (byte) distance[i];
+			}
+			byteRows[source] = row;
+		} else if (farthest <= Short.MAX_VALUE) {
+			short[] row = new short[size];
+			for (int i = 0; i < size; i++) {
+				row[i] = (short) distance[i];
+			}
+			shortRows[source] = row;
+		} else {
+			intRows[source] = distance.clone();
+		}
+	}
+
+	/**
+	 * Gets the number of edges on a shortest path between two vertices.
+	 * @param from
+	 * @param to
+	 * @return the distance, or -1 if there is no path
+	 */
+	public int distance(int from, int to) {
+		if (byteRows[from] != null) {
+			return byteRows[from][to];
+		} else if (shortRows[from] != null) {
+			return shortRows[from][to];
+		}
+		return intRows[from][to];
+	}
+
+	/**
+	 * Gets a shortest path between two vertices. Starting at the first vertex, each step moves
+	 * to the lowest adjacent vertex that is one edge closer to the second.
+	 * @param from
+	 * @param to
+	 * @return the vertices on the path, or null if there is no path
+	 */
+	public int[] path(int from, int to) {
+		int length = distance(from, to);
+		if (length < 0) {
+			return null;
+		}
+		int[] path = new int[length + 1];
+		int[] adjacent = new int[size];
+		path[0] = from;
+		for (int i = 1; i <= length; i++) {
+			int count = am.neighbors(path[i - 1], adjacent);
+			for (int j = 0; j < count; j++) {
+				if (distance(adjacent[j], to) == length - i) {
+					path[i] = adjacent[j];
+					break;
+				}
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Gets the largest distance from a vertex to any other vertex.
+	 * @param vertex
+	 * @return the eccentricity, or INFINITE if the vertex cannot reach every other vertex
+	 */
+	public int eccentricity(int vertex) {
+		return eccentricity[vertex];
+	}
+
+	/**
+	 * Gets the eccentricity of every vertex, indexed by vertex.
+	 * @return an array holding the eccentricity of each vertex
+	 */
+	public int[] getEccentricities() {
+		return eccentricity.clone();
+	}
+
+	/**
+	 * Gets the largest eccentricity of any vertex.
+	 * @return the diameter, or INFINITE if the graph is not connected
+	 */
+	public int diameter() {
+		int diameter = 0;
+		for (int ecc : eccentricity) {
+			diameter = Math.max(diameter, ecc);
+		}
+		return diameter;
+	}
+
+	/**
+	 * Gets the smallest eccentricity of any vertex.
+	 * @return the radius, or INFINITE if the graph is not connected
+	 */
+	public int radius() {
+		int radius = size == 0 ? 0 : INFINITE;
+		for (int ecc : eccentricity) {
+			radius = Math.min(radius, ecc);
+		}
+		return radius;
+	}
+
+}
@@ -0,0 +1,112 @@
+package math;
+
+/**
+ * The arithmetic used to add and multiply the entries of a LongMatrix.
+ *    - EXACT: plain long arithmetic that throws an ArithmeticException on overflow
+ *    - SATURATING: long arithmetic that sticks at Long.MAX_VALUE or Long.MIN_VALUE on overflow
+ *    - BOOLEAN: the boolean semiring, where entries are 0 or 1, adding is OR and multiplying is AND
+ *    - modular(m): arithmetic modulo m, with every entry kept between 0 and m - 1
+ * @author Gunnar Arnesen
+ *
+ */
+public final class Arithmetic {
+
+	/** The largest modulus whose products and sums still fit in a long **/
+	public static final long MAX_MODULUS = 3037000499L;
+
+	enum Kind { EXACT, SATURATING, BOOLEAN, MODULAR }
+
+	public static final Arithmetic EXACT = new Arithmetic(Kind.EXACT, 0);
+	public static final Arithmetic SATURATING = new Arithmetic(Kind.SATURATING, 0);
+	public static final Arithmetic BOOLEAN = new Arithmetic(Kind.BOOLEAN, 0);
+
+	private final Kind kind;
+	private final long modulus;
+
+	private Arithmetic(Kind kind, long modulus) {
+		this.kind = kind;
+		this.modulus = modulus;
+	}
+
+	/**
+	 * Gets the arithmetic modulo the sent modulus.
+	 * @param modulus - A modulus between 1 and MAX_MODULUS
+	 * @return the modular arithmetic
+	 */
+	public static Arithmetic modular(long modulus) {
+		if (modulus < 1 || modulus > MAX_MODULUS) {
+			throw new IllegalArgumentException("Modulus needs to be between 1 and " + MAX_MODULUS + ": " + modulus);
+		}
+		return new Arithmetic(Kind.MODULAR, modulus);
+	}
+
+	/**
+	 * Gets the kind of arithmetic.
+	 * @return the kind
+	 */
+	Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the modulus of modular arithmetic.
+	 * @return the modulus, or 0 if the arithmetic is not modular
+	 */
+	public long getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * Brings a value into the range of this arithmetic.
+	 * @param val
+	 * @return the value modulo the modulus, 0 or 1 for boolean arithmetic, or the value itself
+	 */
+	long normalize(long val) {
+		switch (kind) {
+		case MODULAR:
+			return Math.floorMod(val, modulus);
+		case BOOLEAN:
+			return val != 0 ? 1 : 0;
+		default:
+			return val;
+		}
+	}
+
+	/**
+	 * Adds two values, sticking at the limits of a long on overflow.
+	 * @param a
+	 * @param b
+	 * @return the saturated sum
+	 */
+	static long saturatedAdd(long a, long b) {
+		long sum = a + b;
+		if (((a ^ sum) & (b ^ sum)) < 0) {
+			return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+		}
+		return sum;
+	}
+
+	/**
+	 * Multiplies two values, sticking at the limits of a long on overflow.
+	 * @param a
+	 * @param b
+	 * @return the saturated product
+	 */
+	static long saturatedMultiply(long a, long b) {
+		long product = a * b;
+		long absA = Math.abs(a);
+		long absB = Math.abs(b);
+		if (((absA | absB) >>> 31) != 0) {
+			if ((b != 0 && product / b != a) || (a == Long.MIN_VALUE && b == -1)) {
+				return (a < 0) == (b < 0) ? Long.MAX_VALUE : Long.MIN_VALUE;
+			}
+		}
+		return product;
+	}
+
+	@Override
+	public String toString() {
+		return kind == Kind.MODULAR ? "MODULAR(" + modulus + ")" : kind.name();
+	}
+
+}
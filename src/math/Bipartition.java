@@ -0,0 +1,119 @@
+package math;
+
+import java.util.Arrays;
+
+/**
+ * The result of 2-coloring a Graph. If the graph is bipartite, every vertex has a color of 0
+ * or 1 and no edge joins two vertices of the same color. Otherwise an odd cycle is kept as
+ * proof that no such coloring exists.
+ * @author Gunnar Arnesen
+ *
+ */
+public class Bipartition {
+
+	private byte[] colors;
+	private int[] oddCycle;
+
+	/**
+	 * Creates the Bipartition of a bipartite graph.
+	 * @param colors - The color of each vertex
+	 */
+	Bipartition(byte[] colors) {
+		this.colors = colors;
+	}
+
+	/**
+	 * Creates the Bipartition of a graph that is not bipartite.
+	 * @param oddCycle - The vertices of an odd cycle in order
+	 */
+	Bipartition(int[] oddCycle) {
+		this.oddCycle = oddCycle;
+	}
+
+	/**
+	 * Colors the graph in its adjacency storage with a BFS.
+	 * 
+	 * The root of each component gets color 0 and every vertex found from a vertex gets the
+	 * other color. An edge between two vertices of the same color closes an odd cycle through
+	 * their paths in the BFS tree. The BFS goes level by level, so the cycle is no longer than
+	 * any odd cycle through the root of its component.
+	 * @param am
+	 * @return the Bipartition
+	 */
+	static Bipartition color(AdjacencyStorage am) {
+		int size = am.getSize();
+		byte[] colors = new byte[size];
+		int[] parent = new int[size];
+		int[] depth = new int[size];
+		Arrays.fill(depth, -1);
+		int[] queue = new int[size];
+		int[] adjacent = new int[size];
+		for (int root = 0; root < size; root++) {
+			if (depth[root] >= 0) {
+				continue;
+			}
+
+			// BFS from the root, giving each new vertex the other color
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = root;
+			parent[root] = -1;
+			depth[root] = 0;
+			while (head < tail) {
+				GraphAnalysis.checkInterrupted();
+				int vertex = queue[head++];
+				int count = am.neighbors(vertex, adjacent);
+				for (int i = 0; i < count; i++) {
+					int adjVertex = adjacent[i];
+					if (depth[adjVertex] < 0) {
+						colors[adjVertex] = (byte) (1 - colors[vertex]);
+						parent[adjVertex] = vertex;
+						depth[adjVertex] = depth[vertex] + 1;
+						queue[tail++] = adjVertex;
+					} else if (colors[adjVertex] == colors[vertex]) {
+						if (adjVertex == vertex) {
+							return new Bipartition(new int[] {vertex});
+						}
+						return new Bipartition(Graph.closeCycle(parent, depth, vertex, adjVertex));
+					}
+				}
+			}
+		}
+		return new Bipartition(colors);
+	}
+
+	/**
+	 * Check if the graph is bipartite.
+	 * @return true if the graph is bipartite, false otherwise
+	 */
+	public boolean isBipartite() {
+		return colors != null;
+	}
+
+	/**
+	 * Gets the color of a vertex.
+	 * @param vertex
+	 * @return 0 or 1, or -1 if the graph is not bipartite
+	 */
+	public int getColor(int vertex) {
+		return colors == null ? -1 : colors[vertex];
+	}
+
+	/**
+	 * Gets the color of every vertex, indexed by vertex.
+	 * @return an array holding 0 or 1 for each vertex, or null if the graph is not bipartite
+	 */
+	public byte[] getColors() {
+		return colors == null ? null : colors.clone();
+	}
+
+	/**
+	 * Gets the odd cycle that proves the graph is not bipartite. A self loop is an odd cycle
+	 * of a single vertex.
+	 * @return the vertices of the cycle in order, or null if the graph is bipartite
+	 */
+	public int[] getOddCycle() {
+		return oddCycle == null ? null : oddCycle.clone();
+	}
+
+}
@@ -0,0 +1,186 @@
+package math;
+
+/**
+ * An adjacency matrix for unweighted graphs that stores one bit per entry.
+ *
+ * Each row is kept as an array of longs, bit (col % 64) of word (col / 64) being the entry at
+ * col. This takes 32 times less memory than a SquareMatrix, and scanning a row for adjacent
+ * vertices skips 64 columns at a time. Only the values 0 and 1 can be stored.
+ * @author Gunnar Arnesen
+ *
+ */
+public class BitMatrix implements AdjacencyStorage {
+
+	private int size;
+	private int wordsPerRow;
+	private long[][] rows;
+	private long entryCount;
+	/** The number of times the entries were changed **/
+	private long modCount;
+
+	/**
+	 * Creates a new BitMatrix object with a specified size. All entries are 0.
+	 * @param size - The size of the matrix
+	 */
+	public BitMatrix(int size) {
+		this.size = size;
+		this.wordsPerRow = (size + 63) >>> 6;
+		this.rows = new long[size][wordsPerRow];
+	}
+
+	/**
+	 * Creates a BitMatrix holding the values of the sent 2D array.
+	 * @param matrix - The 2D array of values, which may only hold 0 and 1
+	 * @return the BitMatrix
+	 */
+	public static BitMatrix fromMatrix(int[][] matrix) {
+		int size = matrix.length;
+		if (size > 0 && matrix[0].length != size) {
+			throw new IllegalArgumentException("Matrix needs to be square.");
+		}
+		BitMatrix bits = new BitMatrix(size);
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				bits.set(row, col, matrix[row][col]);
+			}
+		}
+		return bits;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public int get(int row, int col) {
+		return (int) (rows[row][col >>> 6] >>> col) & 1;
+	}
+
+	/**
+	 * Sets a value at the specified entry.
+	 * @param row
+	 * @param col
+	 * @param val - Either 0 or 1
+	 */
+	@Override
+	public void set(int row, int col, int val) {
+		modCount++;
+		long mask = 1L << col;
+		long word = rows[row][col >>> 6];
+		if (val == 1) {
+			if ((word & mask) == 0) {
+				rows[row][col >>> 6] = word | mask;
+				entryCount++;
+			}
+		} else if (val == 0) {
+			if ((word & mask) != 0) {
+				rows[row][col >>> 6] = word & ~mask;
+				entryCount--;
+			}
+		} else {
+			throw new IllegalArgumentException("A BitMatrix can only hold 0 or 1, not " + val);
+		}
+	}
+
+	@Override
+	public int degree(int vertex) {
+		int degree = 0;
+		for (long word : rows[vertex]) {
+			degree += Long.bitCount(word);
+		}
+		return degree;
+	}
+
+	@Override
+	public int neighbors(int vertex, int[] into, int[] weights) {
+		int count = 0;
+		long[] row = rows[vertex];
+		for (int w = 0; w < wordsPerRow; w++) {
+			long word = row[w];
+			while (word != 0) {
+				into[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		if (weights != null) {
+			for (int i = 0; i < count; i++) {
+				weights[i] = 1;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public long getEntryCount() {
+		return entryCount;
+	}
+
+	@Override
+	public int disconnect(int vertex) {
+		modCount++;
+		int edgesRemoved = 0;
+		long[] row = rows[vertex];
+		long vertexMask = 1L << vertex;
+		int vertexWord = vertex >>> 6;
+		for (int w = 0; w < wordsPerRow; w++) {
+			long word = row[w];
+			while (word != 0) {
+				int col = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				if (col != vertex && (rows[col][vertexWord] & vertexMask) != 0) {
+					rows[col][vertexWord] &= ~vertexMask;
+					entryCount--;
+				}
+				edgesRemoved++;
+			}
+			row[w] = 0;
+		}
+		entryCount -= edgesRemoved;
+		return edgesRemoved;
+	}
+
+	@Override
+	public long getModCount() {
+		return modCount;
+	}
+
+	@Override
+	public AdjacencyStorage copy() {
+		BitMatrix copy = new BitMatrix(size);
+		for (int row = 0; row < size; row++) {
+			System.arraycopy(rows[row], 0, copy.rows[row], 0, wordsPerRow);
+		}
+		copy.entryCount = entryCount;
+		return copy;
+	}
+
+	@Override
+	public SquareMatrix toSquareMatrix() {
+		int[][] matrix = new int[size][size];
+		int[] adjacent = new int[size];
+		for (int row = 0; row < size; row++) {
+			int count = neighbors(row, adjacent);
+			for (int i = 0; i < count; i++) {
+				matrix[row][adjacent[i]] = 1;
+			}
+		}
+		return new SquareMatrix(matrix);
+	}
+
+	/**
+	 * Gets the words holding a row, bit (col % 64) of word (col / 64) being the entry at col.
+	 * The array is not copied, so it is only meant for writing the matrix out.
+	 * @param row
+	 * @return the words of the row
+	 */
+	long[] getWords(int row) {
+		return rows[row];
+	}
+
+	@Override
+	public String toString() {
+		return toSquareMatrix().toString();
+	}
+
+}
@@ -0,0 +1,80 @@
+package math;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A lock-free union-find over the items 0 to size - 1.
+ *
+ * Every item points to a parent and roots point to themselves. Roots are only ever linked
+ * under a root with a higher index, so parents keep increasing along a path and no cycles can
+ * form, however the threads interleave. Links and path halving are done with compareAndSet.
+ * @author Gunnar Arnesen
+ *
+ */
+class ConcurrentUnionFind {
+
+	private AtomicIntegerArray parent;
+
+	/**
+	 * Creates a union-find where every item is in its own set.
+	 * @param size
+	 */
+	ConcurrentUnionFind(int size) {
+		parent = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			parent.set(i, i);
+		}
+	}
+
+	/**
+	 * Finds the root of the set of an item, halving the path on the way.
+	 * @param item
+	 * @return the root
+	 */
+	int find(int item) {
+		while (true) {
+			int up = parent.get(item);
+			if (up == item) {
+				return item;
+			}
+			int grandparent = parent.get(up);
+			if (up != grandparent) {
+				parent.compareAndSet(item, up, grandparent);
+			}
+			item = grandparent;
+		}
+	}
+
+	/**
+	 * Check if an item is the root of its set.
+	 * @param item
+	 * @return true if the item is a root, false otherwise
+	 */
+	boolean isRoot(int item) {
+		return parent.get(item) == item;
+	}
+
+	/**
+	 * Joins the sets of two items.
+	 * @param a
+	 * @param b
+	 * @return true if the sets were joined, false if the items were already in the same set
+	 */
+	boolean union(int a, int b) {
+		while (true) {
+			int rootA = find(a);
+			int rootB = find(b);
+			if (rootA == rootB) {
+				return false;
+			}
+			// Link the lower root under the higher one. If another thread moved the lower root
+			// in the meantime, look for the roots again.
+			int low = Math.min(rootA, rootB);
+			int high = Math.max(rootA, rootB);
+			if (parent.compareAndSet(low, low, high)) {
+				return true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,427 @@
+package math;
+
+import java.util.Arrays;
+
+/**
+ * An adjacency matrix in compressed sparse row (CSR) form.
+ *
+ * Only the non-zero entries are kept. The columns of row r are found in columns[rowStart[r]]
+ * up to columns[rowStart[r + 1]] in ascending order, with the matching values at the same
+ * indices of values. When every stored value is 1 the values array is left out entirely.
+ * Memory therefore scales with the number of vertices plus the number of edges.
+ *
+ * Reading an entry is a binary search in its row. Adding or removing an entry rebuilds the
+ * arrays, so a CsrMatrix should be filled through fromMatrix or fromEdges rather than set.
+ * @author Gunnar Arnesen
+ *
+ */
+public class CsrMatrix implements AdjacencyStorage {
+
+	private int size;
+	private int[] rowStart;
+	private int[] columns;
+	/** null when every stored value is 1 **/
+	private int[] values;
+	private long entryCount;
+	/** The number of times the entries were changed **/
+	private long modCount;
+
+	/**
+	 * Creates a CsrMatrix from its arrays. The arrays are used as is and are not checked.
+	 * @param size - The number of rows
+	 * @param rowStart - The start of each row in columns, with one extra entry for the end
+	 * @param columns - The columns of the entries, ascending within each row
+	 * @param values - The values of the entries or null if they are all 1
+	 */
+	CsrMatrix(int size, int[] rowStart, int[] columns, int[] values) {
+		this.size = size;
+		this.rowStart = rowStart;
+		this.columns = columns;
+		this.values = values;
+		this.entryCount = countPositive();
+	}
+
+	/**
+	 * Creates a CsrMatrix holding the non-zero values of the sent 2D array.
+	 * @param matrix - The 2D array of values
+	 * @return the CsrMatrix
+	 */
+	public static CsrMatrix fromMatrix(int[][] matrix) {
+		int size = matrix.length;
+		if (size > 0 && matrix[0].length != size) {
+			throw new IllegalArgumentException("Matrix needs to be square.");
+		}
+
+		// Count the entries and check if the values are needed at all.
+		int nonZero = 0;
+		boolean weighted = false;
+		for (int[] row : matrix) {
+			for (int val : row) {
+				if (val != 0) {
+					nonZero++;
+					weighted |= val != 1;
+				}
+			}
+		}
+
+		// Copy the non-zero entries row by row.
+		int[] rowStart = new int[size + 1];
+		int[] columns = new int[nonZero];
+		int[] values = weighted ? new int[nonZero] : null;
+		int index = 0;
+		for (int row = 0; row < size; row++) {
+			rowStart[row] = index;
+			for (int col = 0; col < size; col++) {
+				if (matrix[row][col] != 0) {
+					if (weighted) {
+						values[index] = matrix[row][col];
+					}
+					columns[index++] = col;
+				}
+			}
+		}
+		rowStart[size] = index;
+		return new CsrMatrix(size, rowStart, columns, values);
+	}
+
+	/**
+	 * Creates the CsrMatrix of an undirected graph from a list of edges. Edge i goes between
+	 * from[i] and to[i] with the weight weights[i]. Edges without a positive weight are left
+	 * out, and if an edge is listed more than once the smallest weight is kept.
+	 * @param size - The number of vertices
+	 * @param from - The first vertex of each edge
+	 * @param to - The second vertex of each edge
+	 * @param weights - The weight of each edge or null if every edge has a weight of 1
+	 * @return the CsrMatrix
+	 */
+	public static CsrMatrix fromEdges(int size, int[] from, int[] to, int[] weights) {
+		if (from.length != to.length || (weights != null && weights.length != from.length)) {
+			throw new IllegalArgumentException("Edge arrays need to have the same length.");
+		}
+
+		// Count the entries of each row. Self loops only have one entry.
+		int[] rowStart = new int[size + 1];
+		for (int i = 0; i < from.length; i++) {
+			if (weights != null && weights[i] <= 0) {
+				continue;
+			}
+			rowStart[from[i] + 1]++;
+			if (from[i] != to[i]) {
+				rowStart[to[i] + 1]++;
+			}
+		}
+		for (int row = 0; row < size; row++) {
+			rowStart[row + 1] += rowStart[row];
+		}
+
+		// Place each entry in its row as a (column, value) pair packed into a long.
+		long[] packed = new long[rowStart[size]];
+		int[] next = Arrays.copyOf(rowStart, size);
+		for (int i = 0; i < from.length; i++) {
+			int weight = weights == null ? 1 : weights[i];
+			if (weight <= 0) {
+				continue;
+			}
+			packed[next[from[i]]++] = ((long) to[i] << 32) | weight;
+			if (from[i] != to[i]) {
+				packed[next[to[i]]++] = ((long) from[i] << 32) | weight;
+			}
+		}
+
+		// Sort each row by column and weight, then keep the first entry of each column.
+		int[] columns = new int[packed.length];
+		int[] values = weights == null ? null : new int[packed.length];
+		int index = 0;
+		for (int row = 0; row < size; row++) {
+			int start = rowStart[row];
+			int end = rowStart[row + 1];
+			Arrays.sort(packed, start, end);
+			rowStart[row] = index;
+			for (int i = start; i < end; i++) {
+				int col = (int) (packed[i] >>> 32);
+				if (index > rowStart[row] && columns[index - 1] == col) {
+					continue;
+				}
+				if (values != null) {
+					values[index] = (int) packed[i];
+				}
+				columns[index++] = col;
+			}
+		}
+		rowStart[size] = index;
+		if (index < columns.length) {
+			columns = Arrays.copyOf(columns, index);
+			values = values == null ? null : Arrays.copyOf(values, index);
+		}
+		return new CsrMatrix(size, rowStart, columns, values);
+	}
+
+	/**
+	 * Check if a graph is sparse enough to be stored as a CsrMatrix.
+	 * @param size - The number of vertices
+	 * @param nonZero - The number of non-zero entries
+	 * @return true if the graph should be stored as a CsrMatrix, false otherwise
+	 */
+	static boolean suits(int size, long nonZero) {
+		return size >= AdjacencyStorage.SPARSE_MIN_VERTICES && nonZero <= AdjacencyStorage.SPARSE_MAX_DENSITY * size * size;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public int get(int row, int col) {
+		int index = find(row, col);
+		if (index < 0) {
+			return 0;
+		}
+		return values == null ? 1 : values[index];
+	}
+
+	/**
+	 * Sets a value at the specified entry. Adding or removing an entry rebuilds the arrays
+	 * and takes time proportional to the number of entries.
+	 * @param row
+	 * @param col
+	 * @param val
+	 */
+	@Override
+	public void set(int row, int col, int val) {
+		modCount++;
+		int index = find(row, col);
+		if (index >= 0) {
+			int old = values == null ? 1 : values[index];
+			if (val == 0) {
+				remove(row, index);
+			} else {
+				if (values == null && val != 1) {
+					values = new int[columns.length];
+					Arrays.fill(values, 1);
+				}
+				if (values != null) {
+					values[index] = val;
+				}
+			}
+			entryCount += (val > 0 ? 1 : 0) - (old > 0 ? 1 : 0);
+		} else if (val != 0) {
+			insert(row, -index - 1, col, val);
+			entryCount += val > 0 ? 1 : 0;
+		}
+	}
+
+	@Override
+	public int degree(int vertex) {
+		if (values == null) {
+			return rowStart[vertex + 1] - rowStart[vertex];
+		}
+		int degree = 0;
+		for (int i = rowStart[vertex]; i < rowStart[vertex + 1]; i++) {
+			if (values[i] > 0) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	@Override
+	public int neighbors(int vertex, int[] into, int[] weights) {
+		int start = rowStart[vertex];
+		int end = rowStart[vertex + 1];
+		if (values == null) {
+			System.arraycopy(columns, start, into, 0, end - start);
+			if (weights != null) {
+				Arrays.fill(weights, 0, end - start, 1);
+			}
+			return end - start;
+		}
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			if (values[i] > 0) {
+				if (weights != null) {
+					weights[count] = values[i];
+				}
+				into[count++] = columns[i];
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public long getEntryCount() {
+		return entryCount;
+	}
+
+	@Override
+	public int disconnect(int vertex) {
+		modCount++;
+		// Mark the vertices with an edge from the sent vertex.
+		boolean[] adjacent = new boolean[size];
+		int edgesRemoved = 0;
+		for (int i = rowStart[vertex]; i < rowStart[vertex + 1]; i++) {
+			if (values == null || values[i] > 0) {
+				adjacent[columns[i]] = true;
+				edgesRemoved++;
+			}
+		}
+		if (edgesRemoved == 0) {
+			return 0;
+		}
+
+		// Compact the arrays, leaving out the edges of the vertex in both directions.
+		int index = 0;
+		for (int row = 0; row < size; row++) {
+			int start = rowStart[row];
+			int end = rowStart[row + 1];
+			rowStart[row] = index;
+			for (int i = start; i < end; i++) {
+				int col = columns[i];
+				boolean positive = values == null || values[i] > 0;
+				if ((row == vertex && positive) || (col == vertex && adjacent[row])) {
+					if (positive) {
+						entryCount--;
+					}
+					continue;
+				}
+				if (values != null) {
+					values[index] = values[i];
+				}
+				columns[index++] = col;
+			}
+		}
+		rowStart[size] = index;
+		columns = Arrays.copyOf(columns, index);
+		values = values == null ? null : Arrays.copyOf(values, index);
+		return edgesRemoved;
+	}
+
+	@Override
+	public long getModCount() {
+		return modCount;
+	}
+
+	@Override
+	public AdjacencyStorage copy() {
+		return new CsrMatrix(size, rowStart.clone(), columns.clone(), values == null ? null : values.clone());
+	}
+
+	@Override
+	public SquareMatrix toSquareMatrix() {
+		int[][] matrix = new int[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int i = rowStart[row]; i < rowStart[row + 1]; i++) {
+				matrix[row][columns[i]] = values == null ? 1 : values[i];
+			}
+		}
+		return new SquareMatrix(matrix);
+	}
+
+	/**
+	 * Gets the start of each row in the columns array, with one extra entry for the end. The
+	 * array is not copied, so it is only meant for writing the matrix out.
+	 * @return the row starts
+	 */
+	int[] getRowStart() {
+		return rowStart;
+	}
+
+	/**
+	 * Gets the columns of the stored entries. The array is not copied.
+	 * @return the columns
+	 */
+	int[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Gets the values of the stored entries. The array is not copied.
+	 * @return the values or null if they are all 1
+	 */
+	int[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Finds the index of an entry with a binary search in its row.
+	 * @param row
+	 * @param col
+	 * @return the index of the entry, or (-(insertion point) - 1) if it is not stored
+	 */
+	private int find(int row, int col) {
+		return Arrays.binarySearch(columns, rowStart[row], rowStart[row + 1], col);
+	}
+
+	/**
+	 * Removes the entry at the given index of the given row.
+	 * @param row
+	 * @param index
+	 */
+	private void remove(int row, int index) {
+		int[] newColumns = new int[columns.length - 1];
+		System.arraycopy(columns, 0, newColumns, 0, index);
+		System.arraycopy(columns, index + 1, newColumns, index, columns.length - index - 1);
+		columns = newColumns;
+		if (values != null) {
+			int[] newValues = new int[values.length - 1];
+			System.arraycopy(values, 0, newValues, 0, index);
+			System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+			values = newValues;
+		}
+		for (int r = row + 1; r <= size; r++) {
+			rowStart[r]--;
+		}
+	}
+
+	/**
+	 * Inserts a new entry at the given index of the given row.
+	 * @param row
+	 * @param index
+	 * @param col
+	 * @param val
+	 */
+	private void insert(int row, int index, int col, int val) {
+		if (values == null && val != 1) {
+			values = new int[columns.length];
+			Arrays.fill(values, 1);
+		}
+		int[] newColumns = new int[columns.length + 1];
+		System.arraycopy(columns, 0, newColumns, 0, index);
+		newColumns[index] = col;
+		System.arraycopy(columns, index, newColumns, index + 1, columns.length - index);
+		columns = newColumns;
+		if (values != null) {
+			int[] newValues = new int[values.length + 1];
+			System.arraycopy(values, 0, newValues, 0, index);
+			newValues[index] = val;
+			System.arraycopy(values, index, newValues, index + 1, values.length - index);
+			values = newValues;
+		}
+		for (int r = row + 1; r <= size; r++) {
+			rowStart[r]++;
+		}
+	}
+
+	/**
+	 * Counts the stored entries greater than 0.
+	 * @return the number of edge entries
+	 */
+	private long countPositive() {
+		if (values == null) {
+			return columns.length;
+		}
+		long count = 0;
+		for (int i = 0; i < rowStart[size]; i++) {
+			if (values[i] > 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return toSquareMatrix().toString();
+	}
+
+}
@@ -0,0 +1,218 @@
+package math;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm over the weights of a Graph's adjacency matrix.
+ *
+ * The values in the adjacency storage are taken as edge weights, which works the same for
+ * dense and sparse storage. Vertices are settled in order of distance with an IndexedMinHeap.
+ * The work arrays are allocated once and only the entries touched by a search are reset
+ * before the next one, so many searches on the same graph stay cheap. An engine is not safe
+ * to share between threads.
+ * @author Gunnar Arnesen
+ *
+ */
+public class Dijkstra {
+
+	private AdjacencyStorage am;
+	private int size;
+
+	private long[] distance;
+	private int[] parent;
+	private IndexedMinHeap heap;
+	private int[] adjacent;
+	private int[] weights;
+	/** vertices whose distance was set by the last search **/
+	private int[] touched;
+	private int touchedCount;
+	/** targets of the current batch source are marked with its stamp **/
+	private int[] wanted;
+	private int stamp;
+
+	/**
+	 * Creates an engine for the sent graph.
+	 * @param graph
+	 */
+	public Dijkstra(Graph graph) {
+		this.am = graph.getStorage();
+		this.size = am.getSize();
+		distance = new long[size];
+		parent = new int[size];
+		Arrays.fill(distance, -1);
+		Arrays.fill(parent, -1);
+		heap = new IndexedMinHeap(size);
+		adjacent = new int[size];
+		weights = new int[size];
+		touched = new int[size];
+		wanted = new int[size];
+	}
+
+	/**
+	 * Calculates the lightest paths from the source to every other vertex.
+	 * @param source
+	 * @return the WeightedPathTree of the source
+	 */
+	public WeightedPathTree search(int source) {
+		checkVertex(source);
+		run(source, 0);
+		return new WeightedPathTree(source, parent.clone(), distance.clone());
+	}
+
+	/**
+	 * Calculates the total weight of a lightest path for many (source, target) queries.
+	 * 
+	 * The queries are grouped by source, so every source is searched only once no matter how
+	 * many queries it has. Each search stops as soon as all the targets of its source are settled.
+	 * @param sources - The source of each query
+	 * @param targets - The target of each query
+	 * @return the distance of each query, -1 where the target cannot be reached
+	 */
+	public long[] distances(int[] sources, int[] targets) {
+		long[] result = new long[sources.length];
+		answer(sources, targets, result, null);
+		return result;
+	}
+
+	/**
+	 * Calculates a lightest path for many (source, target) queries. The queries are grouped
+	 * by source the same way as in distances.
+	 * @param sources - The source of each query
+	 * @param targets - The target of each query
+	 * @return the path of each query, null where the target cannot be reached
+	 */
+	public int[][] paths(int[] sources, int[] targets) {
+		int[][] result = new int[sources.length][];
+		answer(sources, targets, null, result);
+		return result;
+	}
+
+	/**
+	 * Answers a batch of queries, filling in the distances and/or the paths.
+	 * @param sources
+	 * @param targets
+	 * @param distances - Where to put the distance of each query, or null
+	 * @param paths - Where to put the path of each query, or null
+	 */
+	private void answer(int[] sources, int[] targets, long[] distances, int[][] paths) {
+		if (sources.length != targets.length) {
+			throw new IllegalArgumentException("Every query needs a source and a target.");
+		}
+
+		// Sort the queries by source, packing the source and query index into a long
+		long[] order = new long[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			checkVertex(sources[i]);
+			checkVertex(targets[i]);
+			order[i] = ((long) sources[i] << 32) | i;
+		}
+		Arrays.sort(order);
+
+		// Search once per source, stopping when all of its targets are settled
+		int start = 0;
+		while (start < order.length) {
+			int source = (int) (order[start] >>> 32);
+			int end = start;
+			int remaining = 0;
+			stamp++;
+			while (end < order.length && (int) (order[end] >>> 32) == source) {
+				int target = targets[(int) order[end]];
+				if (wanted[target] != stamp) {
+					wanted[target] = stamp;
+					remaining++;
+				}
+				end++;
+			}
+			run(source, remaining);
+			for (int i = start; i < end; i++) {
+				int query = (int) order[i];
+				if (distances != null) {
+					distances[query] = distance[targets[query]];
+				}
+				if (paths != null) {
+					paths[query] = walkUp(parent, distance, targets[query]);
+				}
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from the source.
+	 * @param source
+	 * @param remaining - The number of vertices marked with the current stamp to settle before
+	 * stopping, or 0 to settle every vertex that can be reached
+	 */
+	private void run(int source, int remaining) {
+		// Reset what the last search touched
+		for (int i = 0; i < touchedCount; i++) {
+			distance[touched[i]] = -1;
+			parent[touched[i]] = -1;
+		}
+		touchedCount = 0;
+		heap.clear();
+
+		distance[source] = 0;
+		touched[touchedCount++] = source;
+		heap.push(source, 0);
+		while (!heap.isEmpty()) {
+			GraphAnalysis.checkInterrupted();
+			int vertex = heap.pop();
+			if (remaining > 0 && wanted[vertex] == stamp && --remaining == 0) {
+				return;
+			}
+
+			// Relax the edges of the settled vertex
+			long vertexDistance = distance[vertex];
+			int count = am.neighbors(vertex, adjacent, weights);
+			for (int i = 0; i < count; i++) {
+				int adjVertex = adjacent[i];
+				long newDistance = vertexDistance + weights[i];
+				if (distance[adjVertex] < 0) {
+					distance[adjVertex] = newDistance;
+					parent[adjVertex] = vertex;
+					touched[touchedCount++] = adjVertex;
+					heap.push(adjVertex, newDistance);
+				} else if (newDistance < distance[adjVertex] && heap.contains(adjVertex)) {
+					distance[adjVertex] = newDistance;
+					parent[adjVertex] = vertex;
+					heap.decreaseKey(adjVertex, newDistance);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the path to a target by walking up a tree of parents.
+	 * @param parent - The parent of each vertex
+	 * @param distance - The distance of each vertex, -1 for unreachable vertices
+	 * @param target
+	 * @return the vertices on the path, starting at the root of the tree, or null if the
+	 * target cannot be reached
+	 */
+	static int[] walkUp(int[] parent, long[] distance, int target) {
+		if (distance[target] < 0) {
+			return null;
+		}
+		int length = 0;
+		for (int vertex = target; vertex >= 0; vertex = parent[vertex]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int vertex = target; vertex >= 0; vertex = parent[vertex]) {
+			path[--length] = vertex;
+		}
+		return path;
+	}
+
+	/**
+	 * Makes sure a vertex is in the graph.
+	 * @param vertex
+	 */
+	private void checkVertex(int vertex) {
+		if (vertex < 0 || vertex >= size) {
+			throw new IllegalArgumentException("Vertex " + vertex + " is not in the graph.");
+		}
+	}
+
+}
@@ -1,28 +1,47 @@
 package math;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+
+import utils.Metrics;
 
 /**
- * A graph represented by a SquareMatrix, more specifically an adjacency matrix. The
- * class provides methods to find if the graph is connected, has cycles, is bipartite,
- * and shortest paths.
+ * A graph represented by an adjacency matrix. The matrix is kept in an AdjacencyStorage:
+ * a dense SquareMatrix, a bit-packed BitMatrix or a sparse CsrMatrix. The class provides
+ * methods to find if the graph is connected, has cycles, is bipartite, and shortest paths.
  * @author Gunnar Arnesen
  *
  */
 public class Graph {
 
 	/** am --> Adjacency Matrix **/
-	private SquareMatrix am;
+	private AdjacencyStorage am;
 	private int numVertices;
 
-	/** Store results to method calls here so they do not need to be called multiple times**/
-	private HashMap<String, Boolean> results;
-	private HashMap<String, String> shortestPathResults;
+	/**
+	 * Store results to method calls here so they do not need to be called multiple times. Each
+	 * yes or no property has a bit: it is set in computed once the property is known, and the
+	 * same bit of values holds the answer. Every stored result is dropped once the storage has
+	 * been changed since it was computed.
+	 */
+	private static final int CONNECTED = 1;
+	private static final int CYCLE = 1 << 1;
+	private static final int BIPARTITE = 1 << 2;
+	private int computed;
+	private int values;
+	private long resultsModCount;
+	private PathCache pathCache;
+
+	/** How long the analyses take and how often their results are already stored **/
+	private static final Metrics.Timer CONNECTED_TIMER = Metrics.timer("graph.is_connected");
+	private static final Metrics.Timer CYCLE_TIMER = Metrics.timer("graph.has_cycle");
+	private static final Metrics.Timer BIPARTITE_TIMER = Metrics.timer("graph.is_bipartite");
+	private static final Metrics.Timer PATH_TIMER = Metrics.timer("graph.shortestPath");
+	private static final Metrics.Counter RESULTS_HITS = Metrics.counter("graph.results.hits");
+	private static final Metrics.Counter RESULTS_MISSES = Metrics.counter("graph.results.misses");
+	private static final Metrics.Counter PATH_HITS = Metrics.counter("graph.pathCache.hits");
+	private static final Metrics.Counter PATH_MISSES = Metrics.counter("graph.pathCache.misses");
+	private static final Metrics.Counter PATH_EVICTIONS = Metrics.counter("graph.pathCache.evictions");
 
 
 	/**
@@ -30,232 +49,436 @@ public class Graph {
 	 * @param am
 	 */
 	public Graph(SquareMatrix am) {
+		this((AdjacencyStorage) am);
+	}
+
+	/**
+	 * Create a Graph from any storage of its adjacency matrix.
+	 * @param am
+	 */
+	public Graph(AdjacencyStorage am) {
 		this.am = am;
 		numVertices = am.getSize();
-		results = new HashMap<String, Boolean>();
-		shortestPathResults = new HashMap<String, String>();
+		resultsModCount = am.getModCount();
+		pathCache = new PathCache(PathCache.DEFAULT_CAPACITY);
 	}
 
 	/**
-	 * Creates a Graph from the string representation of it.
+	 * Creates a Graph from the string representation of it. The storage is picked by
+	 * the density of the graph.
 	 * @param amRepresentation
 	 */
 	public Graph(String amRepresentation) {
-		if ((am = parseGraph(amRepresentation)) == null) {
-			throw new IllegalArgumentException("Graph representation is invalid: " + amRepresentation);
-		}
-		results = new HashMap<String, Boolean>();
-		shortestPathResults = new HashMap<String, String>();
+		this(parseGraph(amRepresentation));
 	}
 
 	/**
-	 * Get the SquareMatrix that represents the adjacency matrix of this graph.
+	 * Get the SquareMatrix that represents the adjacency matrix of this graph. If the graph
+	 * is not stored densely this is a new copy, so changes to it do not affect the graph.
 	 * @return the SquareMatrix
 	 */
 	public SquareMatrix getAdjacencyMatrix() {
+		return am.toSquareMatrix();
+	}
+
+	/**
+	 * Get the storage that holds the adjacency matrix of this graph.
+	 * @return the storage
+	 */
+	public AdjacencyStorage getStorage() {
 		return am;
 	}
 
 	/**
 	 * This method checks if the graph is connected.
 	 * 
-	 * To do so, start with an empty list of vertices. Then call the recursive function
-	 * travelToAdjacentVertices. If the size of the list equals the size of the matrix,
-	 * then all vertices were traveled to.
+	 * To do so, label the components of the graph. If there is at most one component, then
+	 * all vertices can be traveled to from any vertex.
 	 * @return true if connected, false otherwise
 	 */
-	private List<Integer> verticesSeen;
 	public boolean is_connected() {
 		// Check if this method has already been called once
-		if (results.containsKey("is_connected")) {
-			return results.get("is_connected");
+		if (isComputed(CONNECTED)) {
+			return (values & CONNECTED) != 0;
 		}
-
-		verticesSeen = new ArrayList<Integer>();
-		travelToAdjacentVertices(0);
+		long start = CONNECTED_TIMER.start();
 
 		// Store the result
-		results.put("is_connected", verticesSeen.size() == am.getSize());
-		return results.get("is_connected");
+		boolean connected = storeResult(CONNECTED, componentCount() <= 1);
+		CONNECTED_TIMER.stop(start);
+		return connected;
+	}
+
+	/**
+	 * Check if a property was stored, counting the hit or miss.
+	 * @param property - The bit of the property
+	 * @return true if it was stored, false otherwise
+	 */
+	private boolean isComputed(int property) {
+		validateResults();
+		if ((computed & property) != 0) {
+			RESULTS_HITS.increment();
+			return true;
+		}
+		RESULTS_MISSES.increment();
+		return false;
+	}
+
+	/**
+	 * Stores a property.
+	 * @param property - The bit of the property
+	 * @param value
+	 * @return the value
+	 */
+	private boolean storeResult(int property, boolean value) {
+		computed |= property;
+		values = value ? values | property : values & ~property;
+		return value;
+	}
+
+	/**
+	 * Drops every stored result if the storage was changed since they were computed.
+	 */
+	private void validateResults() {
+		long modCount = am.getModCount();
+		if (modCount != resultsModCount) {
+			computed = 0;
+			values = 0;
+			componentLabels = null;
+			componentSizes = null;
+			cycle = null;
+			bipartition = null;
+			pathCache.clear();
+			resultsModCount = modCount;
+		}
 	}
 
 	/**
-	 * This recursive function collects all vertices that can be traveled to from the
-	 * sent vertex. To do this, first add the vertex to the list. Then, take the given 
-	 * vertex and see if there is a 1 in it's row in the adjacency matrix. This means 
-	 * there is an edge from the sent vertex to the new vertex. Next, check to make sure 
-	 * this vertex has not already been found by looking in the list. If it has not been 
-	 * found, travel to the adjacent vertices of the new vertex.
-	 * @param vertex - The starting vertex
+	 * Gets the number of connected components in the graph.
+	 * @return the number of components
 	 */
-	private void travelToAdjacentVertices(int vertex) {
-		verticesSeen.add(vertex);
-		for (int adjVertex : getAdjacentVertices(vertex)) {
-			if (!verticesSeen.contains(adjVertex)) {
-				travelToAdjacentVertices(adjVertex);
+	public int componentCount() {
+		labelComponents();
+		return componentSizes.length;
+	}
+
+	/**
+	 * Gets the component the given vertex belongs to. Components are numbered from 0 in the
+	 * order of their lowest vertex.
+	 * @param vertex
+	 * @return the component of the vertex
+	 */
+	public int componentOf(int vertex) {
+		labelComponents();
+		return componentLabels[vertex];
+	}
+
+	/**
+	 * Gets the component of every vertex, indexed by vertex.
+	 * @return an array holding the component of each vertex
+	 */
+	public int[] componentLabels() {
+		labelComponents();
+		return componentLabels.clone();
+	}
+
+	/**
+	 * Gets the number of vertices in every component, indexed by component.
+	 * @return an array holding the size of each component
+	 */
+	public int[] componentSizes() {
+		labelComponents();
+		return componentSizes.clone();
+	}
+
+	/**
+	 * Labels every vertex with its component in one pass over the graph.
+	 * 
+	 * Each vertex that has no label yet starts a new component. A BFS from that vertex labels
+	 * everything it can travel to. The label array doubles as the visited array and the queue
+	 * is a single int array, since every vertex is queued at most once.
+	 */
+	private int[] componentLabels;
+	private int[] componentSizes;
+	private void labelComponents() {
+		// Check if the components have already been labeled
+		validateResults();
+		if (componentLabels != null) {
+			return;
+		}
+
+		int[] labels = new int[numVertices];
+		Arrays.fill(labels, -1);
+		int[] queue = new int[numVertices];
+		int[] adjacent = new int[numVertices];
+		int[] sizes = new int[numVertices];
+		int components = 0;
+		for (int root = 0; root < numVertices; root++) {
+			if (labels[root] >= 0) {
+				continue;
+			}
+
+			// BFS from the root, labeling every vertex that is found
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = root;
+			labels[root] = components;
+			while (head < tail) {
+				GraphAnalysis.checkInterrupted();
+				int vertex = queue[head++];
+				int count = am.neighbors(vertex, adjacent);
+				for (int i = 0; i < count; i++) {
+					if (labels[adjacent[i]] < 0) {
+						labels[adjacent[i]] = components;
+						queue[tail++] = adjacent[i];
+					}
+				}
 			}
+			sizes[components++] = tail;
 		}
+
+		componentSizes = Arrays.copyOf(sizes, components);
+		componentLabels = labels;
 	}
 
 	/**
 	 * This method checks if the graph has cycles.
 	 * 
-	 * First start with a cloned graph and a list with all the vertices. Then, while there are
-	 * still vertices in the list and not 'done' remove vertices from the graph and list that 
-	 * have 0 or 1 adjacent vertices. These vertices will not create a cycle, so remove them.
-	 * If the list becomes empty, there are no cycles. If there is a point where no more 
-	 * vertices can be removed then it is 'done'; this means a cycle is in the graph.
+	 * See findCycle for how the cycles are found.
 	 * @return true if the graph contain a cycle, false otherwise
 	 */
 	public boolean has_cycle() {
 		// Check if this method has already been called once
-		if (results.containsKey("has_cycle")) {
-			return results.get("has_cycle");
+		if (isComputed(CYCLE)) {
+			return (values & CYCLE) != 0;
+		}
+		long start = CYCLE_TIMER.start();
+
+		// Store the result
+		cycle = searchCycle();
+		boolean hasCycle = storeResult(CYCLE, cycle != null);
+		CYCLE_TIMER.stop(start);
+		return hasCycle;
+	}
+
+	/**
+	 * Finds a cycle in the graph to prove that it has one. A self loop is a cycle of a single vertex.
+	 * @return the vertices of the cycle in order, or null if the graph has no cycles
+	 */
+	private int[] cycle;
+	public int[] findCycle() {
+		if (!has_cycle()) {
+			return null;
 		}
+		return cycle.clone();
+	}
 
-		// Make a copy of the current graph so we can edit it
-		Graph temp = new Graph(am.clone());
-
-		// Fill a list with the vertices
-		List<Integer> vertices = IntStream.range(0, am.getSize()).boxed().collect(Collectors.toList());
-
-		// Keep removing nodes with 1 or 0 adjacent vertices until the list is empty or there are none left
-		boolean done = false;
-		while (vertices.size() > 0 && !done) {
-			done = true;
-			for (int i = 0; i < vertices.size(); i++) {
-				int vertex = vertices.get(i);
-				int adjVertices = temp.getAdjacentVertices(vertex).size();
-				if (adjVertices == 1) {
-					vertices.remove(i);
-					temp.disconnectVertex(vertex);
-					done = false;
-					break;
-				} else if (adjVertices == 0) {
-					vertices.remove(i);
+	/**
+	 * Searches every component with a BFS that tracks the parent of each vertex.
+	 * 
+	 * When an edge leads to a vertex that was already found and is not the parent of the current
+	 * vertex, the two vertices are joined both by that edge and by their paths in the BFS tree, so
+	 * there is a cycle. Each vertex and edge is looked at once and the graph is never copied.
+	 * @return the vertices of a cycle in order, or null if there are no cycles
+	 */
+	private int[] searchCycle() {
+		int[] parent = new int[numVertices];
+		int[] depth = new int[numVertices];
+		Arrays.fill(depth, -1);
+		int[] queue = new int[numVertices];
+		int[] adjacent = new int[numVertices];
+		for (int root = 0; root < numVertices; root++) {
+			if (depth[root] >= 0) {
+				continue;
+			}
+
+			// BFS from the root until an edge closes a cycle
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = root;
+			parent[root] = -1;
+			depth[root] = 0;
+			while (head < tail) {
+				GraphAnalysis.checkInterrupted();
+				int vertex = queue[head++];
+				int count = am.neighbors(vertex, adjacent);
+				for (int i = 0; i < count; i++) {
+					int adjVertex = adjacent[i];
+					if (adjVertex == vertex) {
+						return new int[] {vertex};
+					} else if (depth[adjVertex] < 0) {
+						parent[adjVertex] = vertex;
+						depth[adjVertex] = depth[vertex] + 1;
+						queue[tail++] = adjVertex;
+					} else if (adjVertex != parent[vertex]) {
+						return closeCycle(parent, depth, vertex, adjVertex);
+					}
 				}
 			}
 		}
+		return null;
+	}
 
-		// If all vertices were removed, there are no cycles.
-		if (vertices.size() == 0) {
-			results.put("has_cycle", false);
-		} else {
-			results.put("has_cycle", true);
+	/**
+	 * Builds the cycle made by the edge between two vertices and their paths in a BFS tree.
+	 * 
+	 * Both vertices walk up the tree until they meet at their lowest common ancestor. The cycle
+	 * starts at that ancestor, goes down to the first vertex, crosses the edge and goes back up
+	 * from the second vertex.
+	 * @param parent - The parent of each vertex in the tree
+	 * @param depth - The depth of each vertex in the tree
+	 * @param first
+	 * @param second
+	 * @return the vertices of the cycle in order
+	 */
+	static int[] closeCycle(int[] parent, int[] depth, int first, int second) {
+		// Find the lowest common ancestor
+		int a = first;
+		int b = second;
+		while (depth[a] > depth[b]) {
+			a = parent[a];
+		}
+		while (depth[b] > depth[a]) {
+			b = parent[b];
 		}
+		while (a != b) {
+			a = parent[a];
+			b = parent[b];
+		}
+		int top = depth[a];
 
-		return results.get("has_cycle");
+		// Fill in the path down to the first vertex, then the path back up from the second
+		int firstSide = depth[first] - top + 1;
+		int[] cycle = new int[firstSide + depth[second] - top];
+		for (int vertex = first; vertex != a; vertex = parent[vertex]) {
+			cycle[depth[vertex] - top] = vertex;
+		}
+		cycle[0] = a;
+		for (int vertex = second; vertex != a; vertex = parent[vertex]) {
+			cycle[firstSide + depth[second] - depth[vertex]] = vertex;
+		}
+		return cycle;
 	}
 
 	/**
 	 * Check if the graph is bipartite.
 	 * 
-	 * First clone the adjacency matrix so it can be modified. Then, calculate (adjacency matrix)^n
-	 * where 3 < n <= size and n is odd. For each of these graphs, check if the matrix has any values
-	 * that are greater than 0 in the diagonal. If this is true, there is an odd cycle meaning the graph
-	 * is not bipartite. If none of the computer matrices have values greater than 0 in the diagonal,
-	 * the graph is bipartite.
+	 * See bipartition for how the graph is colored.
 	 * @return true if the graph is bipartite, false otherwise
 	 */
 	public boolean is_bipartite() {
 		// Check if this method has already been called once
-		if (results.containsKey("is_bipartite")) {
-			return results.get("is_bipartite");
+		if (isComputed(BIPARTITE)) {
+			return (values & BIPARTITE) != 0;
 		}
-		
-		// Computer (matrix)^n where 3<n<=size and check the diagonals
-		SquareMatrix power = am.clone();
-		for (int i = 3; i <= am.getSize(); i+=2) {
-			power = power.multiply(power).multiply(power);
-			if (power.getDiagonal().stream().anyMatch(a -> a > 0)) {
-				results.put("is_bipartite", false);
-				return false;
-			}
-		}
-		
+		long start = BIPARTITE_TIMER.start();
+
 		// Store the result
-		results.put("is_bipartite", true);
-		return true;
+		boolean bipartite = storeResult(BIPARTITE, bipartition().isBipartite());
+		BIPARTITE_TIMER.stop(start);
+		return bipartite;
+	}
+
+	/**
+	 * Colors the graph with two colors so that no edge joins two vertices of the same color.
+	 * This is done with one BFS over each component, so it takes O(V+E) time. If the graph is
+	 * not bipartite, the Bipartition holds an odd cycle instead.
+	 * @return the Bipartition of the graph
+	 */
+	private Bipartition bipartition;
+	public Bipartition bipartition() {
+		validateResults();
+		if (bipartition == null) {
+			bipartition = Bipartition.color(am);
+		}
+		return bipartition;
 	}
 
 	/**
-	 * Calculates a shortest path from the start to end vertex.
+	 * Calculates a shortest path from the start to end vertex. The vertices are numbered from 1.
 	 * 
-	 * This algorithm uses a BFS approach to find the shortest path from start to end vertex. Most of
-	 * the code uses the Java 8 stream API. The code works by getting the adjacent vertices multiple
-	 * times until the end node is found. Then the path from start to end is built and printed.
+	 * This is a thin wrapper around shortestPathTree. The path from the tree is printed with the
+	 * vertices separated by commas.
 	 * @param start
 	 * @param end
-	 * @return a string representing a shortest path from start to end vertex
+	 * @return a string representing a shortest path from start to end vertex, or "None" if
+	 * the end vertex cannot be reached
 	 */
 	public String shortestPath(int start, int end) {
-		// Check if this method has already been called once
-		String key = start + "_" + end;
-		if (shortestPathResults.containsKey(key)) {
-			return shortestPathResults.get(key);
-		}
-		
-		// Fix the indices
-		int fixedStart = start - 1;
-		int fixedEnd = end - 1;
-
-		// Create lists to hold the vertices traversed and current nodes
-		List<Integer> visitedVertices = new ArrayList<>(Arrays.asList(fixedStart));
-		List<PathNode> nodes = Collections.singletonList(new PathNode(fixedStart, null));
-		
-		// BFS until the end vertex is found
-		while (!visitedVertices.contains(fixedEnd)) {
-			nodes = nodes.stream()
-					.flatMap(
-							node -> getAdjacentVertices(node.val).stream()
-							.filter(val -> !visitedVertices.contains(val))
-							.map(val -> new PathNode(val, node))
-					).collect(Collectors.toList());
-			nodes.stream().map(node -> node.val).forEach(visitedVertices::add);
+		// Check if this pair has already been asked for
+		validateResults();
+		long key = PathCache.key(start, end);
+		int[] path = pathCache.get(key);
+		if (path != null) {
+			PATH_HITS.increment();
+		} else {
+			PATH_MISSES.increment();
+			long startNanos = PATH_TIMER.start();
+
+			// Fix the indices and store the result
+			path = shortestPathTree(start - 1).pathTo(end - 1);
+			if (path == null) {
+				path = PathCache.NO_PATH;
+			}
+			if (pathCache.put(key, path)) {
+				PATH_EVICTIONS.increment();
+			}
+			PATH_TIMER.stop(startNanos);
 		}
-		
-		PathNode endNode = nodes.stream().filter(node -> node.val == fixedEnd).findFirst().get();
 
 		// Build the output string
+		if (path.length == 0) {
+			return "None";
+		}
 		StringBuilder result = new StringBuilder();
-		while (endNode != null) {
-			result.insert(0, ",").insert(1, endNode.val + 1);
-			endNode = endNode.prev;
+		for (int vertex : path) {
+			result.append(result.length() == 0 ? "" : ",").append(vertex + 1);
 		}
-		result.replace(0,1,"");
-		
-		// Store the result
-		shortestPathResults.put(key, result.toString());
 		return result.toString();
 	}
-	
+
 	/**
-	 * A Node that contains a pointer to the Node before it in a path.
+	 * Gets the cache of the paths found by shortestPath, for its hit, miss and eviction counts.
+	 * @return the PathCache
 	 */
-	private class PathNode {
-		int val;
-		PathNode prev;
-		public PathNode(int val, PathNode prev) {
-			this.val = val;
-			this.prev = prev;
-		}
+	public PathCache getPathCache() {
+		return pathCache;
 	}
-	
+
+	/**
+	 * Sets the most paths shortestPath keeps, dropping the ones kept so far.
+	 * @param capacity - The number of paths, at least 1
+	 */
+	public void setPathCacheSize(int capacity) {
+		pathCache = new PathCache(capacity);
+	}
+
+	/**
+	 * Calculates the shortest paths from the source to every other vertex with one BFS. The
+	 * paths can then be read from the tree with pathTo.
+	 * @param source - The source vertex, numbered from 0
+	 * @return the ShortestPathTree of the source
+	 */
+	public ShortestPathTree shortestPathTree(int source) {
+		return ShortestPathTree.search(am, source);
+	}
+
+	/**
+	 * Calculates the distances between every pair of vertices, running one BFS per source in
+	 * parallel. The eccentricities, diameter and radius come from the same pass.
+	 * @return the AllPairsShortestPaths of the graph
+	 */
+	public AllPairsShortestPaths allPairsShortestPaths() {
+		return AllPairsShortestPaths.compute(this);
+	}
+
 	/**
 	 * Removes all edges that are coming off the given vertex.
 	 * @param vertex
 	 * @return the number of edges removed
 	 */
 	public int disconnectVertex(int vertex) {
-		int edgesRemoved = 0;
-		for (int col = 0; col < am.getSize(); col++) {
-			if (am.get(vertex, col) > 0) {
-				am.set(vertex, col, 0);
-				am.set(col, vertex, 0);
-				edgesRemoved++;
-			}
-		}
-		return edgesRemoved;
+		return am.disconnect(vertex);
 	}
 
 	/**
@@ -264,11 +487,11 @@ public class Graph {
 	 * @return
 	 */
 	public List<Integer> getAdjacentVertices(int vertex) {
-		List<Integer> vertices = new ArrayList<Integer>();
-		for (int col = 0; col < am.getSize(); col++) {
-			if (am.get(vertex, col) > 0) {
-				vertices.add(col);
-			}
+		int[] adjacent = new int[am.degree(vertex)];
+		int count = am.neighbors(vertex, adjacent);
+		List<Integer> vertices = new ArrayList<Integer>(count);
+		for (int i = 0; i < count; i++) {
+			vertices.add(adjacent[i]);
 		}
 		return vertices;
 	}
@@ -284,25 +507,17 @@ public class Graph {
 	/**
 	 * Parses an adjacency matrix from it's string representation.
 	 * @param rep
-	 * @return the SquareMatrix if parsed or null if invalid
+	 * @return the storage
+	 * @throws GraphFormatException if the representation is invalid
 	 */
-	private SquareMatrix parseGraph(String rep) {
-		String[] values = rep.split(",");
-		numVertices = Integer.parseInt(values[0]);
+	private static AdjacencyStorage parseGraph(String rep) {
+		ParsedGraph parsed = new GraphParser().parse(rep);
 
 		// Check to make sure this graph is actually valid!
-		if (values.length != numVertices * numVertices + 1) {
-			return null;
-		}
-
-		// Convert the graph from a string to a matrix.
-		int[][] graphMatrix = new int[numVertices][numVertices];
-		for (int row = 0; row < numVertices; row++) {
-			for (int col = 0; col < numVertices; col++) {
-				graphMatrix[row][col] = Integer.parseInt(values[row * numVertices + col + 1]);
-			}
+		if (parsed == null || parsed.getVertexPair() != null) {
+			throw new IllegalArgumentException("Graph representation is invalid: " + rep);
 		}
-		return new SquareMatrix(graphMatrix);
+		return parsed.getStorage();
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package math;
+
+import java.util.EnumSet;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+import utils.Metrics;
+
+/**
+ * The results of every analysis of one graph: whether it is connected, has a cycle or is
+ * bipartite, the shortest path between its vertex pair and the weight of its minimum spanning
+ * forest. The analyses are run once, when the GraphAnalysis is created, so the results can be
+ * handed between threads and read without touching the graph again. A caller that only shows
+ * some of the results can ask for just those analyses.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphAnalysis {
+
+	/**
+	 * The analyses that can be run, in the order they are run.
+	 */
+	public enum Step {
+		CONNECTED, CYCLE, BIPARTITE, SHORTEST_PATH, SPANNING_FOREST
+	}
+
+	/** The number of analyses there are **/
+	public static final int STEPS = Step.values().length;
+
+	/** The shortest path of a vertex pair that is not in the graph **/
+	public static final String INVALID_PAIR = "Invalid pair";
+
+	private static final Metrics.Timer ANALYSIS_TIMER = Metrics.timer("graph.analysis");
+	private static final Metrics.Timer SPANNING_TIMER = Metrics.timer("graph.spanningForest");
+
+	private int vertices;
+	private long edges;
+	private boolean connected;
+	private boolean hasCycle;
+	private boolean bipartite;
+	private int[] vertexPair;
+	private String shortestPath;
+	private long spanningWeight;
+	private long nanos;
+
+	private GraphAnalysis() {}
+
+	/**
+	 * Runs every analysis of a graph.
+	 * @param graph
+	 * @param vertexPair - The two vertices to find a shortest path between, numbered from 1, or
+	 * null to skip the shortest path
+	 * @return the GraphAnalysis
+	 */
+	public static GraphAnalysis of(Graph graph, int[] vertexPair) {
+		return of(graph, vertexPair, null);
+	}
+
+	/**
+	 * Runs every analysis of a graph, reporting each one that is done. The thread is checked for
+	 * an interrupt between the analyses and inside their loops, so a cancelled analysis stops
+	 * soon after it is interrupted.
+	 * @param graph
+	 * @param vertexPair - The two vertices to find a shortest path between, numbered from 1, or
+	 * null to skip the shortest path
+	 * @param progress - Takes the number of analyses done so far, out of STEPS, or null
+	 * @return the GraphAnalysis
+	 * @throws CancellationException if the thread was interrupted
+	 */
+	public static GraphAnalysis of(Graph graph, int[] vertexPair, IntConsumer progress) {
+		return of(graph, vertexPair, EnumSet.allOf(Step.class), progress);
+	}
+
+	/**
+	 * Runs some of the analyses of a graph, reporting each one that is done. The thread is
+	 * checked for an interrupt between the analyses and inside their loops, so a cancelled
+	 * analysis stops soon after it is interrupted. The results of the analyses that are not run
+	 * are left at false, null or -1.
+	 * @param graph
+	 * @param vertexPair - The two vertices to find a shortest path between, numbered from 1, or
+	 * null to skip the shortest path
+	 * @param steps - The analyses to run
+	 * @param progress - Takes the number of analyses done so far, out of steps.size(), or null
+	 * @return the GraphAnalysis
+	 * @throws CancellationException if the thread was interrupted
+	 */
+	public static GraphAnalysis of(Graph graph, int[] vertexPair, EnumSet<Step> steps, IntConsumer progress) {
+		long start = System.nanoTime();
+		GraphAnalysis analysis = new GraphAnalysis();
+		AdjacencyStorage am = graph.getStorage();
+		analysis.vertices = graph.getNumberVertices();
+
+		// Self loops only have one entry, every other edge has two
+		long selfLoops = 0;
+		for (int vertex = 0; vertex < analysis.vertices; vertex++) {
+			if (am.get(vertex, vertex) > 0) {
+				selfLoops++;
+			}
+		}
+		analysis.edges = (am.getEntryCount() + selfLoops) / 2;
+
+		analysis.spanningWeight = -1;
+		int done = 0;
+		for (Step step : steps) {
+			switch (step) {
+			case CONNECTED:
+				analysis.connected = graph.is_connected();
+				break;
+			case CYCLE:
+				analysis.hasCycle = graph.has_cycle();
+				break;
+			case BIPARTITE:
+				analysis.bipartite = graph.is_bipartite();
+				break;
+			case SHORTEST_PATH:
+				if (vertexPair != null) {
+					analysis.vertexPair = vertexPair.clone();
+					analysis.shortestPath = isVertex(graph, vertexPair[0]) && isVertex(graph, vertexPair[1])
+							? graph.shortestPath(vertexPair[0], vertexPair[1]) : INVALID_PAIR;
+				}
+				break;
+			default:
+				long spanningStart = SPANNING_TIMER.start();
+				analysis.spanningWeight = MinimumSpanningForest.compute(graph).getTotalWeight();
+				SPANNING_TIMER.stop(spanningStart);
+			}
+			step(progress, ++done, steps.size());
+		}
+		analysis.nanos = System.nanoTime() - start;
+		ANALYSIS_TIMER.record(analysis.nanos);
+		return analysis;
+	}
+
+	/**
+	 * Reports that an analysis is done and stops if the thread was interrupted.
+	 * @param progress
+	 * @param done - The number of analyses done
+	 * @param total - The number of analyses to run
+	 */
+	private static void step(IntConsumer progress, int done, int total) {
+		if (progress != null) {
+			progress.accept(done);
+		}
+		if (done < total && Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("The analysis was cancelled after " + done + " of " + total + " steps.");
+		}
+	}
+
+	/**
+	 * Stops a long analysis if the thread running it was interrupted. The loops of the analyses
+	 * call this once per vertex or source, so a cancelled analysis does not hold the graph until
+	 * the end of a step.
+	 * @throws CancellationException if the thread was interrupted
+	 */
+	static void checkInterrupted() {
+		checkInterrupted(Thread.currentThread());
+	}
+
+	/**
+	 * Stops a long analysis if the thread that asked for it was interrupted, for the parts of
+	 * an analysis that run on the threads of a pool.
+	 * @param caller - The thread that asked for the analysis
+	 * @throws CancellationException if the thread was interrupted
+	 */
+	static void checkInterrupted(Thread caller) {
+		if (caller.isInterrupted()) {
+			throw new CancellationException("The analysis was cancelled.");
+		}
+	}
+
+	/**
+	 * Check if a vertex, numbered from 1, is in a graph.
+	 * @param graph
+	 * @param vertex
+	 * @return true if the vertex is in the graph, false otherwise
+	 */
+	public static boolean isVertex(Graph graph, int vertex) {
+		return vertex >= 1 && vertex <= graph.getNumberVertices();
+	}
+
+	/**
+	 * Gets the number of vertices.
+	 * @return the number of vertices
+	 */
+	public int getVertices() {
+		return vertices;
+	}
+
+	/**
+	 * Gets the number of edges, counting a self loop as one edge.
+	 * @return the number of edges
+	 */
+	public long getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Check if the graph is connected.
+	 * @return true if connected, false otherwise
+	 */
+	public boolean isConnected() {
+		return connected;
+	}
+
+	/**
+	 * Check if the graph has a cycle.
+	 * @return true if there is a cycle, false otherwise
+	 */
+	public boolean hasCycle() {
+		return hasCycle;
+	}
+
+	/**
+	 * Check if the graph is bipartite.
+	 * @return true if bipartite, false otherwise
+	 */
+	public boolean isBipartite() {
+		return bipartite;
+	}
+
+	/**
+	 * Gets the vertex pair the shortest path was found between.
+	 * @return the pair, numbered from 1, or null if there was none
+	 */
+	public int[] getVertexPair() {
+		return vertexPair == null ? null : vertexPair.clone();
+	}
+
+	/**
+	 * Gets the shortest path between the vertex pair, in the form of Graph.shortestPath.
+	 * @return the path, "None" if there is no path, INVALID_PAIR if a vertex of the pair is not
+	 * in the graph, or null if there was no pair
+	 */
+	public String getShortestPath() {
+		return shortestPath;
+	}
+
+	/**
+	 * Gets the total weight of the minimum spanning forest. For a connected graph this is the
+	 * weight of the minimum spanning tree found by PrimsAlgorithm.
+	 * @return the total weight, or -1 if the spanning forest was not computed
+	 */
+	public long getSpanningWeight() {
+		return spanningWeight;
+	}
+
+	/**
+	 * Gets the time it took to run the analyses.
+	 * @return the time in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+}
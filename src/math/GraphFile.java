@@ -0,0 +1,785 @@
+package math;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import utils.Utils;
+
+/**
+ * A binary file holding any number of graphs, which are read through a memory-mapped view of
+ * the file instead of being parsed.
+ *
+ * The file starts with a header, followed by one record per graph and an index of where each
+ * record starts. All values are big-endian and every record starts at a multiple of 8 bytes.
+ *    Header: magic "CGRF" (int), version (short), 0 (short), graph count (long), index offset (long)
+ *    Record: layout (byte), flags (byte), 0 (short), size (int), entry count (long),
+ *            vertex pair (2 ints, 0 if there is none), then the matrix in its layout:
+ *       DENSE - size * size ints, row by row
+ *       BITS  - size * ((size + 63) / 64) longs, the rows of a BitMatrix
+ *       CSR   - size + 1 ints of row starts, then the columns and, if WEIGHTED, the values
+ *    Index:  the offset of each record (long)
+ *
+ * The storages of a GraphFile read straight from the mapped file, so opening a graph takes no
+ * heap for its matrix. Reading a graph checks the part of its record that could send a storage
+ * out of bounds, which takes O(V) time for a BITS record and O(V + E) for a CSR record, and
+ * nothing for a DENSE record. The storages are read-only: set and disconnect throw an
+ * UnsupportedOperationException, and copy gives an ordinary storage that can be changed.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphFile implements Closeable {
+
+	/** The first four bytes of every GraphFile, "CGRF" **/
+	public static final int MAGIC = 0x43475246;
+	public static final short VERSION = 1;
+
+	private static final int HEADER_SIZE = 24;
+	private static final int RECORD_HEADER_SIZE = 24;
+
+	/** The layouts of a record **/
+	private static final byte DENSE = 0;
+	private static final byte BITS = 1;
+	private static final byte CSR = 2;
+
+	/** The flags of a record **/
+	private static final byte WEIGHTED = 1;
+	private static final byte PAIR = 2;
+
+	private FileChannel channel;
+	/** The whole file, or null if it is too large to map at once **/
+	private ByteBuffer file;
+	private long[] offsets;
+	private long indexOffset;
+
+	/**
+	 * Opens a GraphFile and reads its index.
+	 * @param path
+	 * @throws IOException
+	 */
+	private GraphFile(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long fileSize = channel.size();
+			if (fileSize <= Integer.MAX_VALUE) {
+				file = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			}
+			ByteBuffer header = slice(0, Math.min(HEADER_SIZE, fileSize));
+			if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+				throw new IOException(path + " is not a GraphFile.");
+			} else if (header.getShort(4) != VERSION) {
+				throw new IOException(path + " has version " + header.getShort(4) + ", only version " + VERSION + " can be read.");
+			}
+			long count = header.getLong(8);
+			indexOffset = header.getLong(16);
+			if (count < 0 || count > Integer.MAX_VALUE || indexOffset < HEADER_SIZE || indexOffset + count * 8 > fileSize) {
+				throw new IOException(path + " has a corrupt header.");
+			}
+
+			// Read the offset of each record
+			offsets = new long[(int) count];
+			slice(indexOffset, count * 8).asLongBuffer().get(offsets);
+			for (int i = 0; i < offsets.length; i++) {
+				if (offsets[i] < HEADER_SIZE || offsets[i] + RECORD_HEADER_SIZE > recordEnd(i)) {
+					throw new IOException(path + " has a corrupt index at graph " + (i + 1) + ".");
+				}
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a GraphFile. The file can be closed once the graphs are read; the mapping stays
+	 * valid until the storages are no longer used.
+	 * @param path
+	 * @return the GraphFile
+	 * @throws IOException if the file cannot be read or is not a GraphFile
+	 */
+	public static GraphFile open(Path path) throws IOException {
+		return new GraphFile(path);
+	}
+
+	/**
+	 * Check if a file starts like a GraphFile.
+	 * @param path
+	 * @return true if the file has the magic of a GraphFile, false otherwise
+	 */
+	public static boolean isGraphFile(Path path) {
+		try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			while (magic.hasRemaining() && in.read(magic) >= 0) {
+				// Keep reading until the four bytes are in
+			}
+			return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the number of graphs in the file.
+	 * @return the number of graphs
+	 */
+	public int getGraphCount() {
+		return offsets.length;
+	}
+
+	/**
+	 * Reads a graph from the file. The storage reads the matrix from the mapped file when it is
+	 * used; only the header of the record and, for a CSR record, the row starts and columns or,
+	 * for a BITS record, the last word of each row are read up front, to check that they are in
+	 * bounds.
+	 * @param index - The index of the graph, starting at 0
+	 * @return the ParsedGraph, its line being index + 1
+	 * @throws IOException if the record is corrupt
+	 */
+	public ParsedGraph read(int index) throws IOException {
+		ByteBuffer record = slice(offsets[index], recordEnd(index) - offsets[index]);
+		byte layout = record.get(0);
+		byte flags = record.get(1);
+		int size = record.getInt(4);
+		long entryCount = record.getLong(8);
+		int[] pair = (flags & PAIR) != 0 ? new int[] {record.getInt(16), record.getInt(20)} : null;
+		if (size < 1) {
+			throw corrupt(index);
+		}
+		record.position(RECORD_HEADER_SIZE);
+		ByteBuffer data = record.slice();
+
+		// Check that the matrix fits in the record before handing it out
+		AdjacencyStorage storage;
+		long length = data.limit();
+		switch (layout) {
+		case DENSE:
+			if (length < (long) size * size * 4) {
+				throw corrupt(index);
+			}
+			storage = new MappedDense(size, entryCount, data.asIntBuffer());
+			break;
+		case BITS:
+			if (length < (long) size * ((size + 63) >>> 6) * 8) {
+				throw corrupt(index);
+			}
+			LongBuffer words = data.asLongBuffer();
+
+			// Check that no bit is set past the last column of a row
+			if ((size & 63) != 0) {
+				int wordsPerRow = (size + 63) >>> 6;
+				long padding = -1L << (size & 63);
+				for (int row = 0; row < size; row++) {
+					if ((words.get(row * wordsPerRow + wordsPerRow - 1) & padding) != 0) {
+						throw corrupt(index);
+					}
+				}
+			}
+			storage = new MappedBits(size, entryCount, words);
+			break;
+		case CSR:
+			IntBuffer ints = data.asIntBuffer();
+			if (length < (size + 1L) * 4) {
+				throw corrupt(index);
+			}
+			int nonZero = ints.get(size);
+			boolean weighted = (flags & WEIGHTED) != 0;
+			if (nonZero < 0 || length < (size + 1L + nonZero * (weighted ? 2L : 1L)) * 4) {
+				throw corrupt(index);
+			}
+
+			// Check that the rows start at 0, never go back and end at the last entry, and that
+			// the columns of each row ascend within the matrix
+			if (ints.get(0) != 0) {
+				throw corrupt(index);
+			}
+			for (int row = 0; row < size; row++) {
+				int start = ints.get(row);
+				int end = ints.get(row + 1);
+				if (end < start || end > nonZero) {
+					throw corrupt(index);
+				}
+				int previous = -1;
+				for (int i = start; i < end; i++) {
+					int col = ints.get(size + 1 + i);
+					if (col <= previous || col >= size) {
+						throw corrupt(index);
+					}
+					previous = col;
+				}
+			}
+			storage = new MappedCsr(size, entryCount, ints, nonZero, weighted);
+			break;
+		default:
+			throw corrupt(index);
+		}
+		return new ParsedGraph(storage, pair, index + 1);
+	}
+
+	/**
+	 * Opens a graph of the file as a Graph.
+	 * @param index - The index of the graph, starting at 0
+	 * @return the Graph
+	 * @throws IOException if the record is corrupt
+	 */
+	public Graph getGraph(int index) throws IOException {
+		return new Graph(read(index).getStorage());
+	}
+
+	/**
+	 * Opens a graph of the file as a weighted graph for Prim's algorithm.
+	 * @param index - The index of the graph, starting at 0
+	 * @return the PrimsAlgorithm
+	 * @throws IOException if the record is corrupt
+	 */
+	public PrimsAlgorithm getPrimsAlgorithm(int index) throws IOException {
+		return new PrimsAlgorithm(read(index).getStorage());
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Gets the offset where a record ends, which is where the next one starts.
+	 * @param index
+	 * @return the end of the record
+	 */
+	private long recordEnd(int index) {
+		return index + 1 < offsets.length ? offsets[index + 1] : indexOffset;
+	}
+
+	/**
+	 * Gets a part of the file as a buffer.
+	 * @param offset
+	 * @param length
+	 * @return the buffer, starting at position 0
+	 * @throws IOException if the part cannot be mapped
+	 */
+	private ByteBuffer slice(long offset, long length) throws IOException {
+		if (length < 0 || length > Integer.MAX_VALUE) {
+			throw new IOException("A part of " + length + " bytes cannot be mapped.");
+		}
+		if (file == null) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+		}
+		ByteBuffer part = file.duplicate();
+		part.limit((int) (offset + length));
+		part.position((int) offset);
+		return part.slice();
+	}
+
+	/**
+	 * Creates the exception for a corrupt record.
+	 * @param index
+	 * @return the IOException
+	 */
+	private static IOException corrupt(int index) {
+		return new IOException("Graph " + (index + 1) + " of the GraphFile is corrupt.");
+	}
+
+	/**
+	 * Converts a file in the comma-separated graph format to a GraphFile. Blank lines are
+	 * skipped and each other line becomes one graph, in order.
+	 * @param text - The file to convert
+	 * @param binary - The GraphFile to write
+	 * @return the number of graphs written
+	 * @throws IOException if a file cannot be read or written
+	 * @throws GraphFormatException if a line is not a valid graph
+	 */
+	public static int convert(Path text, Path binary) throws IOException {
+		GraphParser parser = new GraphParser();
+		try (MappedLineReader reader = new MappedLineReader(text); Writer writer = new Writer(binary)) {
+			while (reader.next()) {
+				ParsedGraph parsed = parser.parse(reader.getBuffer(), reader.getStart(), reader.getEnd(), reader.getLineNumber());
+				if (parsed != null) {
+					writer.add(parsed.getStorage(), parsed.getVertexPair());
+				}
+			}
+			return writer.getGraphCount();
+		}
+	}
+
+	/**
+	 * Converts a text file to a GraphFile.
+	 * @param args - The text file and the GraphFile to write
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			Utils.log("GraphFile", "Usage: GraphFile <text file> <graph file>");
+			return;
+		}
+		long start = System.nanoTime();
+		int count = convert(Paths.get(args[0]), Paths.get(args[1]));
+		Utils.log("GraphFile", "Converted " + count + " graphs in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+	/**
+	 * Writes graphs to a new GraphFile. Each graph keeps the layout of its storage: a CsrMatrix
+	 * becomes a CSR record, a BitMatrix a BITS record and anything else a DENSE record. The
+	 * header and the index are written when the Writer is closed.
+	 * @author Gunnar Arnesen
+	 *
+	 */
+	public static class Writer implements Closeable {
+
+		private FileChannel channel;
+		private ByteBuffer buffer;
+		private long position;
+		private long[] offsets;
+		private int count;
+
+		/**
+		 * Creates a new file to write graphs to, replacing any file at the path.
+		 * @param path
+		 * @throws IOException
+		 */
+		public Writer(Path path) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			buffer = ByteBuffer.allocate(1 << 20);
+			offsets = new long[16];
+
+			// Leave room for the header
+			buffer.put(new byte[HEADER_SIZE]);
+			position = HEADER_SIZE;
+		}
+
+		/**
+		 * Writes a graph to the file.
+		 * @param storage - The adjacency matrix of the graph
+		 * @param vertexPair - The two vertices to find a path between, or null
+		 * @throws IOException
+		 */
+		public void add(AdjacencyStorage storage, int[] vertexPair) throws IOException {
+			// Mapped storages are copied so they can be written like any other
+			if (storage instanceof MappedStorage) {
+				storage = storage.copy();
+			}
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			offsets[count++] = position;
+
+			int size = storage.getSize();
+			byte layout = storage instanceof CsrMatrix ? CSR : storage instanceof BitMatrix ? BITS : DENSE;
+			byte flags = 0;
+			if (layout == CSR && ((CsrMatrix) storage).getValues() != null) {
+				flags |= WEIGHTED;
+			}
+			if (vertexPair != null) {
+				flags |= PAIR;
+			}
+
+			// The record header
+			ensure(RECORD_HEADER_SIZE);
+			buffer.put(layout).put(flags).putShort((short) 0).putInt(size).putLong(storage.getEntryCount());
+			buffer.putInt(vertexPair == null ? 0 : vertexPair[0]).putInt(vertexPair == null ? 0 : vertexPair[1]);
+			position += RECORD_HEADER_SIZE;
+
+			// The matrix
+			switch (layout) {
+			case CSR:
+				CsrMatrix csr = (CsrMatrix) storage;
+				int nonZero = csr.getRowStart()[size];
+				putInts(csr.getRowStart(), size + 1);
+				putInts(csr.getColumns(), nonZero);
+				if ((flags & WEIGHTED) != 0) {
+					putInts(csr.getValues(), nonZero);
+				}
+				break;
+			case BITS:
+				BitMatrix bits = (BitMatrix) storage;
+				for (int row = 0; row < size; row++) {
+					long[] words = bits.getWords(row);
+					ensure(words.length * 8);
+					for (long word : words) {
+						buffer.putLong(word);
+					}
+					position += words.length * 8;
+				}
+				break;
+			default:
+				for (int row = 0; row < size; row++) {
+					ensure(size * 4);
+					for (int col = 0; col < size; col++) {
+						buffer.putInt(storage.get(row, col));
+					}
+					position += size * 4;
+				}
+			}
+			pad();
+		}
+
+		/**
+		 * Gets the number of graphs written so far.
+		 * @return the number of graphs
+		 */
+		public int getGraphCount() {
+			return count;
+		}
+
+		/**
+		 * Writes the index and the header, then closes the file.
+		 * @throws IOException
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				long indexOffset = position;
+				for (int i = 0; i < count; i++) {
+					ensure(8);
+					buffer.putLong(offsets[i]);
+				}
+				flush();
+
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(count).putLong(indexOffset);
+				header.flip();
+				while (header.hasRemaining()) {
+					channel.write(header, header.position());
+				}
+			} finally {
+				channel.close();
+			}
+		}
+
+		/**
+		 * Writes the first length values of an array.
+		 * @param values
+		 * @param length
+		 * @throws IOException
+		 */
+		private void putInts(int[] values, int length) throws IOException {
+			for (int i = 0; i < length; i++) {
+				ensure(4);
+				buffer.putInt(values[i]);
+			}
+			position += length * 4L;
+		}
+
+		/**
+		 * Pads the record so the next one starts at a multiple of 8 bytes.
+		 * @throws IOException
+		 */
+		private void pad() throws IOException {
+			int padding = (int) (-position & 7);
+			ensure(padding);
+			buffer.put(new byte[padding]);
+			position += padding;
+		}
+
+		/**
+		 * Makes room in the buffer, writing it to the file if needed.
+		 * @param bytes - The number of bytes to make room for
+		 * @throws IOException
+		 */
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+				if (buffer.capacity() < bytes) {
+					buffer = ByteBuffer.allocate(bytes);
+				}
+			}
+		}
+
+		/**
+		 * Writes the buffer to the file.
+		 * @throws IOException
+		 */
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+	}
+
+	/**
+	 * The base of the storages that read from a mapped file. They cannot be changed.
+	 */
+	private abstract static class MappedStorage implements AdjacencyStorage {
+
+		protected int size;
+		protected long entryCount;
+
+		MappedStorage(int size, long entryCount) {
+			this.size = size;
+			this.entryCount = entryCount;
+		}
+
+		@Override
+		public int getSize() {
+			return size;
+		}
+
+		@Override
+		public long getEntryCount() {
+			return entryCount;
+		}
+
+		@Override
+		public long getModCount() {
+			return 0;
+		}
+
+		@Override
+		public void set(int row, int col, int val) {
+			throw new UnsupportedOperationException("A graph read from a GraphFile cannot be changed, copy it first.");
+		}
+
+		@Override
+		public int disconnect(int vertex) {
+			throw new UnsupportedOperationException("A graph read from a GraphFile cannot be changed, copy it first.");
+		}
+
+		@Override
+		public String toString() {
+			return toSquareMatrix().toString();
+		}
+
+	}
+
+	/**
+	 * A DENSE record: every entry, row by row.
+	 */
+	private static class MappedDense extends MappedStorage {
+
+		private IntBuffer entries;
+
+		MappedDense(int size, long entryCount, IntBuffer entries) {
+			super(size, entryCount);
+			this.entries = entries;
+		}
+
+		@Override
+		public int get(int row, int col) {
+			return entries.get(row * size + col);
+		}
+
+		@Override
+		public int degree(int vertex) {
+			int degree = 0;
+			int base = vertex * size;
+			for (int col = 0; col < size; col++) {
+				if (entries.get(base + col) > 0) {
+					degree++;
+				}
+			}
+			return degree;
+		}
+
+		@Override
+		public int neighbors(int vertex, int[] into, int[] weights) {
+			int count = 0;
+			int base = vertex * size;
+			for (int col = 0; col < size; col++) {
+				int val = entries.get(base + col);
+				if (val > 0) {
+					if (weights != null) {
+						weights[count] = val;
+					}
+					into[count++] = col;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public AdjacencyStorage copy() {
+			return toSquareMatrix();
+		}
+
+		@Override
+		public SquareMatrix toSquareMatrix() {
+			int[][] matrix = new int[size][size];
+			IntBuffer rows = entries.duplicate();
+			rows.position(0);
+			for (int row = 0; row < size; row++) {
+				rows.get(matrix[row]);
+			}
+			return new SquareMatrix(matrix);
+		}
+
+	}
+
+	/**
+	 * A BITS record: the words of each row of a BitMatrix.
+	 */
+	private static class MappedBits extends MappedStorage {
+
+		private LongBuffer words;
+		private int wordsPerRow;
+
+		MappedBits(int size, long entryCount, LongBuffer words) {
+			super(size, entryCount);
+			this.words = words;
+			this.wordsPerRow = (size + 63) >>> 6;
+		}
+
+		@Override
+		public int get(int row, int col) {
+			return (int) (words.get(row * wordsPerRow + (col >>> 6)) >>> col) & 1;
+		}
+
+		@Override
+		public int degree(int vertex) {
+			int degree = 0;
+			int base = vertex * wordsPerRow;
+			for (int w = 0; w < wordsPerRow; w++) {
+				degree += Long.bitCount(words.get(base + w));
+			}
+			return degree;
+		}
+
+		@Override
+		public int neighbors(int vertex, int[] into, int[] weights) {
+			int count = 0;
+			int base = vertex * wordsPerRow;
+			for (int w = 0; w < wordsPerRow; w++) {
+				long word = words.get(base + w);
+				while (word != 0) {
+					into[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			if (weights != null) {
+				Arrays.fill(weights, 0, count, 1);
+			}
+			return count;
+		}
+
+		@Override
+		public AdjacencyStorage copy() {
+			BitMatrix copy = new BitMatrix(size);
+			int[] adjacent = new int[size];
+			for (int row = 0; row < size; row++) {
+				int count = neighbors(row, adjacent);
+				for (int i = 0; i < count; i++) {
+					copy.set(row, adjacent[i], 1);
+				}
+			}
+			return copy;
+		}
+
+		@Override
+		public SquareMatrix toSquareMatrix() {
+			return copy().toSquareMatrix();
+		}
+
+	}
+
+	/**
+	 * A CSR record: the row starts, the columns and, if weighted, the values of a CsrMatrix.
+	 */
+	private static class MappedCsr extends MappedStorage {
+
+		private IntBuffer rowStart;
+		private IntBuffer columns;
+		/** null when every stored value is 1 **/
+		private IntBuffer values;
+
+		MappedCsr(int size, long entryCount, IntBuffer ints, int nonZero, boolean weighted) {
+			super(size, entryCount);
+			rowStart = part(ints, 0, size + 1);
+			columns = part(ints, size + 1, nonZero);
+			values = weighted ? part(ints, size + 1 + nonZero, nonZero) : null;
+		}
+
+		/**
+		 * Gets a part of a buffer as its own buffer.
+		 * @param ints
+		 * @param start
+		 * @param length
+		 * @return the part
+		 */
+		private static IntBuffer part(IntBuffer ints, int start, int length) {
+			IntBuffer part = ints.duplicate();
+			part.limit(start + length);
+			part.position(start);
+			return part.slice();
+		}
+
+		@Override
+		public int get(int row, int col) {
+			// Binary search for the column in its row
+			int low = rowStart.get(row);
+			int high = rowStart.get(row + 1) - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int midCol = columns.get(mid);
+				if (midCol < col) {
+					low = mid + 1;
+				} else if (midCol > col) {
+					high = mid - 1;
+				} else {
+					return values == null ? 1 : values.get(mid);
+				}
+			}
+			return 0;
+		}
+
+		@Override
+		public int degree(int vertex) {
+			int start = rowStart.get(vertex);
+			int end = rowStart.get(vertex + 1);
+			if (values == null) {
+				return end - start;
+			}
+			int degree = 0;
+			for (int i = start; i < end; i++) {
+				if (values.get(i) > 0) {
+					degree++;
+				}
+			}
+			return degree;
+		}
+
+		@Override
+		public int neighbors(int vertex, int[] into, int[] weights) {
+			int start = rowStart.get(vertex);
+			int end = rowStart.get(vertex + 1);
+			int count = 0;
+			for (int i = start; i < end; i++) {
+				int val = values == null ? 1 : values.get(i);
+				if (val > 0) {
+					if (weights != null) {
+						weights[count] = val;
+					}
+					into[count++] = columns.get(i);
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public AdjacencyStorage copy() {
+			int[] rows = new int[size + 1];
+			int[] cols = new int[columns.limit()];
+			rowStart.duplicate().get(rows);
+			columns.duplicate().get(cols);
+			int[] vals = null;
+			if (values != null) {
+				vals = new int[values.limit()];
+				values.duplicate().get(vals);
+			}
+			return new CsrMatrix(size, rows, cols, vals);
+		}
+
+		@Override
+		public SquareMatrix toSquareMatrix() {
+			return copy().toSquareMatrix();
+		}
+
+	}
+
+}
@@ -0,0 +1,43 @@
+package math;
+
+/**
+ * Thrown when a line of the comma-separated graph format cannot be parsed. The line number and
+ * the column of the offending character are kept so the error can be found in large files.
+ * @author Gunnar Arnesen
+ *
+ */
+@SuppressWarnings("serial")
+public class GraphFormatException extends IllegalArgumentException {
+
+	private long line;
+	private int column;
+
+	/**
+	 * Creates a new GraphFormatException.
+	 * @param message - What was wrong
+	 * @param line - The line number, starting at 1
+	 * @param column - The column in the line, starting at 1
+	 */
+	public GraphFormatException(String message, long line, int column) {
+		super("Line " + line + ", column " + column + ": " + message);
+		this.line = line;
+		this.column = column;
+	}
+
+	/**
+	 * Gets the number of the line with the error.
+	 * @return the line number, starting at 1
+	 */
+	public long getLine() {
+		return line;
+	}
+
+	/**
+	 * Gets the column of the error in its line.
+	 * @return the column, starting at 1
+	 */
+	public int getColumn() {
+		return column;
+	}
+
+}
@@ -0,0 +1,344 @@
+package math;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import utils.Metrics;
+
+/**
+ * A parser for the comma-separated graph format.
+ *
+ * A line holds the number of vertices n followed by the n * n entries of the adjacency matrix,
+ * row by row, and optionally two more vertices to find a shortest path between:
+ *    3,0,1,1,1,0,1,1,1,0,1,3
+ * The parser decodes the integers straight from the bytes of the line into the storage of the
+ * graph, without splitting the line into Strings. Sparse graphs are collected as CSR entries;
+ * once a line has too many non-zero entries for that, the entries so far are moved into a
+ * BitMatrix, or a SquareMatrix as soon as a weight other than 1 is seen. The CSR buffers are
+ * kept between lines, so apart from them the parser only allocates the storage it returns.
+ *
+ * A GraphParser is not safe to share between threads, but any number of them can parse lines
+ * of the same buffer at once.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphParser {
+
+	private static final int SPARSE = 0;
+	private static final int BITS = 1;
+	private static final int DENSE = 2;
+
+	private static final Metrics.Timer PARSE_TIMER = Metrics.timer("graph.parse");
+	private static final Metrics.Counter PARSE_ERRORS = Metrics.counter("graph.parse.errors");
+
+	/** The position in the line being parsed, for error messages **/
+	private long line;
+	private int lineStart;
+	private int lineEnd;
+
+	/** The graph being built **/
+	private int size;
+	private long entries;
+	private int row;
+	private int col;
+	private int mode;
+	private boolean weighted;
+	private long sparseLimit;
+	private int[] pair;
+	private int pairCount;
+
+	/** SPARSE mode: the entries of each row, kept between lines **/
+	private int[] rowStart;
+	private int[] columns = new int[64];
+	private int[] values = new int[64];
+	private int nonZero;
+
+	/** BITS and DENSE mode **/
+	private BitMatrix bits;
+	private int[][] dense;
+
+	/**
+	 * Parses a graph from its string representation.
+	 * @param rep
+	 * @return the ParsedGraph, or null if the line is blank
+	 * @throws GraphFormatException if the line is not a valid graph
+	 */
+	public ParsedGraph parse(String rep) {
+		byte[] bytes = rep.getBytes(StandardCharsets.ISO_8859_1);
+		return parse(ByteBuffer.wrap(bytes), 0, bytes.length, 1);
+	}
+
+	/**
+	 * Parses a graph from the bytes of a line. Only absolute reads are done on the buffer, so
+	 * its position and limit are left alone.
+	 * @param buffer - The buffer holding the line
+	 * @param start - The index of the first byte of the line
+	 * @param end - One past the index of the last byte of the line, without the line break
+	 * @param lineNumber - The number of the line, for error messages
+	 * @return the ParsedGraph, or null if the line is blank
+	 * @throws GraphFormatException if the line is not a valid graph
+	 */
+	public ParsedGraph parse(ByteBuffer buffer, int start, int end, long lineNumber) {
+		long startNanos = PARSE_TIMER.start();
+		try {
+			return parseLine(buffer, start, end, lineNumber);
+		} catch (GraphFormatException e) {
+			PARSE_ERRORS.increment();
+			throw e;
+		} finally {
+			PARSE_TIMER.stop(startNanos);
+		}
+	}
+
+	/**
+	 * Parses a graph from the bytes of a line, see parse.
+	 * @param buffer
+	 * @param start
+	 * @param end
+	 * @param lineNumber
+	 * @return the ParsedGraph, or null if the line is blank
+	 */
+	private ParsedGraph parseLine(ByteBuffer buffer, int start, int end, long lineNumber) {
+		line = lineNumber;
+		lineStart = start;
+		lineEnd = end;
+		size = 0;
+		pair = null;
+		pairCount = 0;
+		bits = null;
+		dense = null;
+		rowStart = null;
+
+		// Decode the numbers one byte at a time
+		long value = 0;
+		boolean negative = false;
+		boolean digits = false;
+		boolean ended = false;
+		boolean any = false;
+		for (int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+			if (b >= '0' && b <= '9') {
+				if (ended) {
+					throw error("expected a comma", i);
+				}
+				value = value * 10 + (b - '0');
+				if (value > Integer.MAX_VALUE + 1L) {
+					throw error("number is too large", i);
+				}
+				digits = true;
+				any = true;
+			} else if (b == ',') {
+				accept(finish(value, negative, digits, i), i);
+				value = 0;
+				negative = false;
+				digits = false;
+				ended = false;
+				any = true;
+			} else if (b == '-') {
+				if (digits || negative) {
+					throw error("unexpected '-'", i);
+				}
+				negative = true;
+				any = true;
+			} else if (b == ' ' || b == '\t' || b == '\r') {
+				ended = digits;
+			} else {
+				throw error("unexpected character '" + (char) (b & 0xff) + "'", i);
+			}
+		}
+		if (!any) {
+			return null;
+		}
+		accept(finish(value, negative, digits, end), end);
+
+		// Check that every entry was there
+		if (entries < (long) size * size) {
+			throw error("expected " + ((long) size * size + 1) + " numbers but found " + (entries + 1), end);
+		} else if (pairCount == 1) {
+			throw error("expected two vertices after the matrix but found one", end);
+		}
+		return new ParsedGraph(build(), pairCount == 2 ? pair : null, line);
+	}
+
+	/**
+	 * Finishes the number that was being decoded.
+	 * @param value - The digits of the number
+	 * @param negative - If the number had a minus sign
+	 * @param digits - If the number had any digits
+	 * @param index - The index of the byte after the number
+	 * @return the number
+	 */
+	private int finish(long value, boolean negative, boolean digits, int index) {
+		if (!digits) {
+			throw error("expected a number", index);
+		}
+		if (!negative && value > Integer.MAX_VALUE) {
+			throw error("number is too large", index - 1);
+		}
+		return (int) (negative ? -value : value);
+	}
+
+	/**
+	 * Takes the next number of the line: first the number of vertices, then the entries of the
+	 * matrix and then the vertex pair.
+	 * @param value
+	 * @param index - The index of the byte after the number
+	 */
+	private void accept(int value, int index) {
+		if (size == 0) {
+			start(value, index);
+		} else if (entries < (long) size * size) {
+			put(value);
+			if (++col == size) {
+				col = 0;
+				row++;
+			}
+			entries++;
+		} else if (pairCount < 2) {
+			if (pair == null) {
+				pair = new int[2];
+			}
+			pair[pairCount++] = value;
+		} else {
+			throw error("expected " + ((long) size * size + 1) + " numbers, or two more for a vertex pair", index);
+		}
+	}
+
+	/**
+	 * Starts a graph with the given number of vertices.
+	 * @param vertices
+	 * @param index - The index of the byte after the number
+	 */
+	private void start(int vertices, int index) {
+		if (vertices < 1) {
+			throw error("the number of vertices needs to be at least 1", index - 1);
+		}
+
+		// Check that the line is long enough to hold the matrix before making room for it. Every
+		// entry takes at least a digit and a comma.
+		if ((long) vertices * vertices * 2 > lineEnd - lineStart) {
+			throw error("the line is too short for a matrix of " + vertices + " vertices", index - 1);
+		}
+		size = vertices;
+		entries = 0;
+		row = 0;
+		col = 0;
+		weighted = false;
+		nonZero = 0;
+		if (CsrMatrix.suits(size, 0)) {
+			mode = SPARSE;
+			sparseLimit = (long) (AdjacencyStorage.SPARSE_MAX_DENSITY * size * size);
+			rowStart = new int[size + 1];
+		} else {
+			mode = BITS;
+			bits = new BitMatrix(size);
+		}
+	}
+
+	/**
+	 * Writes an entry of the matrix at the current row and column.
+	 * @param value
+	 */
+	private void put(int value) {
+		switch (mode) {
+		case SPARSE:
+			if (col == 0) {
+				rowStart[row] = nonZero;
+			}
+			if (value == 0) {
+				return;
+			}
+			weighted |= value != 1;
+			if (nonZero == columns.length) {
+				columns = Arrays.copyOf(columns, nonZero * 2);
+				values = Arrays.copyOf(values, nonZero * 2);
+			}
+			columns[nonZero] = col;
+			values[nonZero++] = value;
+			if (nonZero > sparseLimit) {
+				leaveSparse();
+			}
+			break;
+		case BITS:
+			if (value == 0) {
+				return;
+			}
+			if (value == 1) {
+				bits.set(row, col, 1);
+				return;
+			}
+			leaveBits();
+			dense[row][col] = value;
+			break;
+		default:
+			dense[row][col] = value;
+		}
+	}
+
+	/**
+	 * Moves the entries collected so far into a BitMatrix, or a 2D array if they are weighted.
+	 */
+	private void leaveSparse() {
+		if (weighted) {
+			dense = new int[size][size];
+		} else {
+			bits = new BitMatrix(size);
+		}
+		for (int r = 0; r <= row; r++) {
+			int last = r < row ? rowStart[r + 1] : nonZero;
+			for (int i = rowStart[r]; i < last; i++) {
+				if (weighted) {
+					dense[r][columns[i]] = values[i];
+				} else {
+					bits.set(r, columns[i], 1);
+				}
+			}
+		}
+		mode = weighted ? DENSE : BITS;
+		rowStart = null;
+	}
+
+	/**
+	 * Moves the entries collected so far from the BitMatrix into a 2D array.
+	 */
+	private void leaveBits() {
+		dense = new int[size][size];
+		int[] adjacent = new int[size];
+		for (int r = 0; r <= row; r++) {
+			int count = bits.neighbors(r, adjacent);
+			for (int i = 0; i < count; i++) {
+				dense[r][adjacent[i]] = 1;
+			}
+		}
+		bits = null;
+		mode = DENSE;
+	}
+
+	/**
+	 * Creates the storage holding the entries of the line.
+	 * @return the storage
+	 */
+	private AdjacencyStorage build() {
+		switch (mode) {
+		case SPARSE:
+			rowStart[size] = nonZero;
+			return new CsrMatrix(size, rowStart, Arrays.copyOf(columns, nonZero), weighted ? Arrays.copyOf(values, nonZero) : null);
+		case BITS:
+			return bits;
+		default:
+			return new SquareMatrix(dense);
+		}
+	}
+
+	/**
+	 * Creates an exception for an error at the given index of the line.
+	 * @param message
+	 * @param index
+	 * @return the GraphFormatException
+	 */
+	private GraphFormatException error(String message, int index) {
+		return new GraphFormatException(message, line, index - lineStart + 1);
+	}
+
+}
@@ -0,0 +1,169 @@
+package math;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of int items from 0 to capacity - 1, each with a long key.
+ *
+ * The position of every item in the heap is tracked, so the key of an item can be lowered in
+ * O(log n) time. Everything is kept in primitive arrays and nothing is boxed. Items with the
+ * same key come out lowest item first.
+ * @author Gunnar Arnesen
+ *
+ */
+class IndexedMinHeap {
+
+	private int[] heap;
+	/** position of each item in heap, -1 if it is not in the heap **/
+	private int[] position;
+	private long[] key;
+	private int size;
+
+	/**
+	 * Creates an empty heap for the items 0 to capacity - 1.
+	 * @param capacity
+	 */
+	IndexedMinHeap(int capacity) {
+		heap = new int[capacity];
+		position = new int[capacity];
+		key = new long[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * Check if the heap is empty.
+	 * @return true if there are no items, false otherwise
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the number of items in the heap.
+	 * @return the size
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Check if an item is in the heap.
+	 * @param item
+	 * @return true if the item is in the heap, false otherwise
+	 */
+	boolean contains(int item) {
+		return position[item] >= 0;
+	}
+
+	/**
+	 * Gets the key of an item in the heap.
+	 * @param item
+	 * @return the key
+	 */
+	long keyOf(int item) {
+		return key[item];
+	}
+
+	/**
+	 * Adds an item that is not in the heap yet.
+	 * @param item
+	 * @param itemKey
+	 */
+	void push(int item, long itemKey) {
+		key[item] = itemKey;
+		heap[size] = item;
+		position[item] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * Lowers the key of an item in the heap.
+	 * @param item
+	 * @param itemKey - The new key, which must not be larger than the current one
+	 */
+	void decreaseKey(int item, long itemKey) {
+		key[item] = itemKey;
+		siftUp(position[item]);
+	}
+
+	/**
+	 * Removes the item with the smallest key.
+	 * @return the item
+	 */
+	int pop() {
+		int top = heap[0];
+		position[top] = -1;
+		if (--size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Removes every item from the heap. This takes time proportional to the number of items
+	 * in the heap, not its capacity.
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Moves the item at the given index up until its parent is smaller.
+	 * @param index
+	 */
+	private void siftUp(int index) {
+		int item = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (!less(item, heap[parent])) {
+				break;
+			}
+			heap[index] = heap[parent];
+			position[heap[index]] = index;
+			index = parent;
+		}
+		heap[index] = item;
+		position[item] = index;
+	}
+
+	/**
+	 * Moves the item at the given index down until its children are larger.
+	 * @param index
+	 */
+	private void siftDown(int index) {
+		int item = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && less(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!less(heap[child], item)) {
+				break;
+			}
+			heap[index] = heap[child];
+			position[heap[index]] = index;
+			index = child;
+		}
+		heap[index] = item;
+		position[item] = index;
+	}
+
+	/**
+	 * Orders items by key, then by item.
+	 * @param a
+	 * @param b
+	 * @return true if a comes before b, false otherwise
+	 */
+	private boolean less(int a, int b) {
+		return key[a] < key[b] || (key[a] == key[b] && a < b);
+	}
+
+}
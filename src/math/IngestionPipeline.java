@@ -0,0 +1,470 @@
+package math;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Reads a file of graphs in the comma-separated format with a pipeline of threads.
+ *
+ * The pipeline has three stages connected by bounded queues:
+ *    - a reader thread maps the file and groups its lines into batches
+ *    - a pool of parser threads, each with its own GraphParser, parses the lines of a batch and
+ *      builds an object from each graph
+ *    - the thread calling run puts the batches back in order and hands each graph to a Receiver
+ * At most queueCapacity batches are between the reader and the receiver at once, so a slow
+ * receiver holds the reader back instead of letting parsed graphs pile up in memory. The lines
+ * are never copied: a batch only holds where its lines are in the mapped file.
+ *
+ * Each stage counts what it handled and how long it was busy or waiting on its neighbours; see
+ * getReadStage, getParseStage and getReceiveStage.
+ * @author Gunnar Arnesen
+ *
+ * @param <T> - The type built from each graph
+ */
+public class IngestionPipeline<T> {
+
+	/** A batch is sent on once it has this many lines or bytes **/
+	private static final int BATCH_LINES = 256;
+	private static final int BATCH_BYTES = 1 << 16;
+
+	/**
+	 * Takes the graphs of the file in the order of their lines.
+	 * @param <T>
+	 */
+	public interface Receiver<T> {
+
+		/**
+		 * Takes the object built from the graph on a line.
+		 * @param item
+		 * @param line - The line number, starting at 1
+		 */
+		void accept(T item, long line);
+
+		/**
+		 * Takes the error of a line that is not a valid graph.
+		 * @param error - The error, usually a GraphFormatException
+		 * @param line - The line number, starting at 1
+		 */
+		void reject(IllegalArgumentException error, long line);
+	}
+
+	private final Function<ParsedGraph, T> builder;
+	private final int parsers;
+	private final int queueCapacity;
+
+	private final Stage reading = new Stage("read");
+	private final Stage parsing = new Stage("parse");
+	private final Stage receiving = new Stage("receive");
+
+	/** The first error that stopped the reader or that a parser hit on a line **/
+	private volatile Throwable failure;
+
+	/**
+	 * Creates a pipeline with a parser for each processor.
+	 * @param builder - Builds the object handed to the receiver from each graph. It is called
+	 * on the parser threads and may throw an IllegalArgumentException to reject a graph.
+	 */
+	public IngestionPipeline(Function<ParsedGraph, T> builder) {
+		this(builder, Runtime.getRuntime().availableProcessors(), 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a pipeline.
+	 * @param builder - Builds the object handed to the receiver from each graph. It is called
+	 * on the parser threads and may throw an IllegalArgumentException to reject a graph.
+	 * @param parsers - The number of parser threads
+	 * @param queueCapacity - The number of batches that can be in the pipeline at once
+	 */
+	public IngestionPipeline(Function<ParsedGraph, T> builder, int parsers, int queueCapacity) {
+		if (parsers < 1 || queueCapacity < 1) {
+			throw new IllegalArgumentException("A pipeline needs at least one parser and room for one batch.");
+		}
+		this.builder = builder;
+		this.parsers = parsers;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Reads every graph of a file and hands them to the receiver in the order of their lines.
+	 * Blank lines are skipped. The receiver is only called on the thread calling run, which
+	 * returns once the whole file is through the pipeline.
+	 * @param file
+	 * @param receiver
+	 * @return the number of graphs accepted by the receiver
+	 * @throws IOException if the file cannot be read. The graphs before the failure are still
+	 * handed to the receiver.
+	 * @throws RuntimeException or Error if the builder failed on a line with anything but an
+	 * IllegalArgumentException. That line is rejected and every other line of the file is still
+	 * handed to the receiver before the first such failure is thrown.
+	 */
+	public long run(Path file, Receiver<T> receiver) throws IOException {
+		reading.reset();
+		parsing.reset();
+		receiving.reset();
+		failure = null;
+
+		BlockingQueue<Batch> input = new ArrayBlockingQueue<Batch>(queueCapacity + parsers);
+		BlockingQueue<Batch> output = new ArrayBlockingQueue<Batch>(queueCapacity + parsers);
+		Semaphore inFlight = new Semaphore(queueCapacity);
+
+		Thread[] threads = new Thread[parsers + 1];
+		threads[0] = new Thread(() -> read(file, input, inFlight), "Pipeline reader");
+		for (int i = 1; i <= parsers; i++) {
+			threads[i] = new Thread(() -> parse(input, output), "Pipeline parser " + i);
+		}
+		for (Thread thread : threads) {
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		// Receive the batches, keeping those that came early until their turn
+		long accepted = 0;
+		boolean finished = false;
+		try {
+			HashMap<Long, Batch> early = new HashMap<Long, Batch>();
+			long next = 0;
+			int ended = 0;
+			while (ended < parsers) {
+				long waitStart = System.nanoTime();
+				Batch batch = output.take();
+				long busyStart = System.nanoTime();
+				receiving.waited(busyStart - waitStart);
+				if (batch == Batch.END) {
+					ended++;
+					continue;
+				}
+				early.put(batch.sequence, batch);
+				while ((batch = early.remove(next)) != null) {
+					for (int i = 0; i < batch.count; i++) {
+						Object result = batch.results[i];
+						if (result instanceof IllegalArgumentException) {
+							receiver.reject((IllegalArgumentException) result, batch.lines[i]);
+						} else if (result != null) {
+							@SuppressWarnings("unchecked")
+							T item = (T) result;
+							receiver.accept(item, batch.lines[i]);
+							accepted++;
+						}
+					}
+					receiving.handled(batch.count, batch.bytes);
+					inFlight.release();
+					next++;
+				}
+				receiving.busy(System.nanoTime() - busyStart);
+			}
+			finished = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Reading " + file + " was interrupted.");
+		} finally {
+			// Stop the other stages if the receiver failed or was interrupted
+			if (!finished) {
+				for (Thread thread : threads) {
+					thread.interrupt();
+				}
+			}
+		}
+
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		return accepted;
+	}
+
+	/**
+	 * The reader stage: groups the lines of the file into batches.
+	 * @param file
+	 * @param input - The queue to the parsers
+	 * @param inFlight - A permit for each batch that may enter the pipeline
+	 */
+	private void read(Path file, BlockingQueue<Batch> input, Semaphore inFlight) {
+		long busyStart = System.nanoTime();
+		try (MappedLineReader reader = new MappedLineReader(file)) {
+			long sequence = 0;
+			Batch batch = null;
+			while (reader.next()) {
+				if (batch == null) {
+					batch = new Batch(sequence++);
+				}
+				batch.add(reader.getBuffer(), reader.getStart(), reader.getEnd(), reader.getLineNumber());
+				if (batch.count == BATCH_LINES || batch.bytes >= BATCH_BYTES) {
+					busyStart = send(batch, input, inFlight, busyStart);
+					batch = null;
+				}
+			}
+			if (batch != null) {
+				busyStart = send(batch, input, inFlight, busyStart);
+			}
+		} catch (InterruptedException e) {
+			return;
+		} catch (Throwable t) {
+			fail(t);
+		}
+		reading.busy(System.nanoTime() - busyStart);
+
+		// Tell each parser that the file has ended
+		try {
+			for (int i = 0; i < parsers; i++) {
+				input.put(Batch.END);
+			}
+		} catch (InterruptedException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Sends a full batch to the parsers, waiting for room in the pipeline.
+	 * @param batch
+	 * @param input
+	 * @param inFlight
+	 * @param busyStart - When the reader last started working
+	 * @return when the reader starts working again
+	 * @throws InterruptedException
+	 */
+	private long send(Batch batch, BlockingQueue<Batch> input, Semaphore inFlight, long busyStart) throws InterruptedException {
+		long waitStart = System.nanoTime();
+		reading.busy(waitStart - busyStart);
+		reading.handled(batch.count, batch.bytes);
+		inFlight.acquire();
+		input.put(batch);
+		long now = System.nanoTime();
+		reading.waited(now - waitStart);
+		return now;
+	}
+
+	/**
+	 * The parser stage: parses the lines of each batch and builds the objects from them.
+	 * @param input - The queue from the reader
+	 * @param output - The queue to the receiver
+	 */
+	private void parse(BlockingQueue<Batch> input, BlockingQueue<Batch> output) {
+		GraphParser parser = new GraphParser();
+		try {
+			while (true) {
+				long waitStart = System.nanoTime();
+				Batch batch = input.take();
+				long busyStart = System.nanoTime();
+				parsing.waited(busyStart - waitStart);
+				if (batch == Batch.END) {
+					break;
+				}
+				batch.results = new Object[batch.count];
+				for (int i = 0; i < batch.count; i++) {
+					try {
+						ParsedGraph parsed = parser.parse(batch.buffers[i], batch.starts[i], batch.ends[i], batch.lines[i]);
+						batch.results[i] = parsed == null ? null : builder.apply(parsed);
+					} catch (IllegalArgumentException e) {
+						batch.results[i] = e;
+					} catch (RuntimeException | Error e) {
+						// Reject only this line and keep the failure for run to throw at the end
+						batch.results[i] = new IllegalArgumentException("Line " + batch.lines[i] + " could not be built: " + e, e);
+						fail(e);
+						parser = new GraphParser();
+					}
+				}
+				parsing.handled(batch.count, batch.bytes);
+				parsing.busy(System.nanoTime() - busyStart);
+				waitStart = System.nanoTime();
+				output.put(batch);
+				parsing.waited(System.nanoTime() - waitStart);
+			}
+		} catch (InterruptedException e) {
+			return;
+		}
+
+		// Tell the receiver that this parser is done
+		try {
+			output.put(Batch.END);
+		} catch (InterruptedException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Keeps the first error that stopped a stage.
+	 * @param t
+	 */
+	private synchronized void fail(Throwable t) {
+		if (failure == null) {
+			failure = t;
+		}
+	}
+
+	/**
+	 * Gets the counters of the reader stage. A line is one item.
+	 * @return the stage
+	 */
+	public Stage getReadStage() {
+		return reading;
+	}
+
+	/**
+	 * Gets the counters of the parser stage, summed over all parsers. A line is one item.
+	 * @return the stage
+	 */
+	public Stage getParseStage() {
+		return parsing;
+	}
+
+	/**
+	 * Gets the counters of the receiving stage. A line is one item.
+	 * @return the stage
+	 */
+	public Stage getReceiveStage() {
+		return receiving;
+	}
+
+	@Override
+	public String toString() {
+		return reading + ", " + parsing + ", " + receiving;
+	}
+
+	/**
+	 * The counters of one stage of the pipeline since the start of the last run.
+	 * @author Gunnar Arnesen
+	 *
+	 */
+	public static class Stage {
+
+		private final String name;
+		private final LongAdder items = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder busyNanos = new LongAdder();
+		private final LongAdder waitNanos = new LongAdder();
+		private volatile long startNanos;
+
+		Stage(String name) {
+			this.name = name;
+		}
+
+		void reset() {
+			items.reset();
+			bytes.reset();
+			busyNanos.reset();
+			waitNanos.reset();
+			startNanos = System.nanoTime();
+		}
+
+		void handled(int count, long size) {
+			items.add(count);
+			bytes.add(size);
+		}
+
+		void busy(long nanos) {
+			busyNanos.add(nanos);
+		}
+
+		void waited(long nanos) {
+			waitNanos.add(nanos);
+		}
+
+		/**
+		 * Gets the name of the stage.
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the number of lines the stage has handled.
+		 * @return the number of lines
+		 */
+		public long getItems() {
+			return items.sum();
+		}
+
+		/**
+		 * Gets the number of bytes in the lines the stage has handled.
+		 * @return the number of bytes
+		 */
+		public long getBytes() {
+			return bytes.sum();
+		}
+
+		/**
+		 * Gets the time the stage spent working, summed over its threads.
+		 * @return the time in nanoseconds
+		 */
+		public long getBusyNanos() {
+			return busyNanos.sum();
+		}
+
+		/**
+		 * Gets the time the stage spent waiting for the stage before it or for room in the
+		 * stage after it, summed over its threads.
+		 * @return the time in nanoseconds
+		 */
+		public long getWaitNanos() {
+			return waitNanos.sum();
+		}
+
+		/**
+		 * Gets the number of lines handled per second since the start of the last run.
+		 * @return the throughput
+		 */
+		public double getThroughput() {
+			long elapsed = System.nanoTime() - startNanos;
+			return elapsed <= 0 ? 0 : getItems() * 1e9 / elapsed;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %d lines (%.1f MB) at %.0f lines/s, busy %d ms, waiting %d ms", name, getItems(), getBytes() / 1e6,
+					getThroughput(), getBusyNanos() / 1000000, getWaitNanos() / 1000000);
+		}
+
+	}
+
+	/**
+	 * A group of lines, which goes through the pipeline as one.
+	 */
+	private static final class Batch {
+
+		/** Marks the end of the file **/
+		static final Batch END = new Batch(-1);
+
+		final long sequence;
+		ByteBuffer[] buffers = new ByteBuffer[16];
+		int[] starts = new int[16];
+		int[] ends = new int[16];
+		long[] lines = new long[16];
+		int count;
+		long bytes;
+		/** The object built from each line, its error, or null if it was blank **/
+		Object[] results;
+
+		Batch(long sequence) {
+			this.sequence = sequence;
+		}
+
+		void add(ByteBuffer buffer, int start, int end, long line) {
+			if (count == starts.length) {
+				buffers = Arrays.copyOf(buffers, count * 2);
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+				lines = Arrays.copyOf(lines, count * 2);
+			}
+			buffers[count] = buffer;
+			starts[count] = start;
+			ends[count] = end;
+			lines[count++] = line;
+			bytes += end - start;
+		}
+
+	}
+
+}
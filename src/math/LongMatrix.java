@@ -0,0 +1,220 @@
+package math;
+
+import java.util.stream.IntStream;
+
+/**
+ * A square matrix of longs whose products are calculated with a chosen Arithmetic.
+ *
+ * This is what SquareMatrix.power returns when the entries might not fit in an int, such as
+ * counts of long walks (EXACT or SATURATING), counts modulo a number (modular) or which
+ * vertices can reach each other (BOOLEAN).
+ * @author Gunnar Arnesen
+ *
+ */
+public class LongMatrix {
+
+	/** Matrices with at most this many multiply-adds are not split across threads **/
+	private static final long PARALLEL_THRESHOLD = 1 << 18;
+	/** The width and height of the tiles the multiplication is blocked into **/
+	private static final int TILE = 64;
+	/** The number of rows multiplied by each parallel task **/
+	private static final int BAND = 16;
+
+	private int size;
+	private long[][] matrix;
+
+	/**
+	 * Creates a new LongMatrix object.
+	 * @param matrix - The 2D array of values
+	 */
+	public LongMatrix(long[][] matrix) {
+		if (matrix.length != matrix[0].length) {
+			throw new IllegalArgumentException("Matrix needs to be square.");
+		}
+		this.size = matrix.length;
+		this.matrix = matrix;
+	}
+
+	/**
+	 * Creates a new LongMatrix object with a specified size. All entries are 0.
+	 * @param size - The size of the matrix
+	 */
+	public LongMatrix(int size) {
+		this.size = size;
+		this.matrix = new long[size][size];
+	}
+
+	/**
+	 * Creates the identity matrix of the sent arithmetic.
+	 * @param size
+	 * @param arithmetic
+	 * @return the identity matrix
+	 */
+	public static LongMatrix identity(int size, Arithmetic arithmetic) {
+		LongMatrix identity = new LongMatrix(size);
+		long one = arithmetic.normalize(1);
+		for (int i = 0; i < size; i++) {
+			identity.matrix[i][i] = one;
+		}
+		return identity;
+	}
+
+	/**
+	 * Gets the value at an entry in the matrix.
+	 * @param row
+	 * @param col
+	 * @return the value
+	 */
+	public long get(int row, int col) {
+		return matrix[row][col];
+	}
+
+	/**
+	 * Sets a value at the specified entry.
+	 * @param row
+	 * @param col
+	 * @param val
+	 */
+	public void set(int row, int col, long val) {
+		matrix[row][col] = val;
+	}
+
+	/**
+	 * Gets the size of the matrix.
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Calculates the matrix to a given power by repeated squaring, which takes O(log power)
+	 * multiplications.
+	 * @param power - The exponent, at least 0
+	 * @param arithmetic - The arithmetic of the entries
+	 * @return the calculated matrix
+	 */
+	public LongMatrix power(int power, Arithmetic arithmetic) {
+		if (power < 0) {
+			throw new IllegalArgumentException("Power needs to be at least 0: " + power);
+		}
+		LongMatrix result = null;
+		LongMatrix square = this.normalize(arithmetic);
+		while (true) {
+			if ((power & 1) != 0) {
+				result = result == null ? square : result.multiply(square, arithmetic);
+			}
+			power >>>= 1;
+			if (power == 0) {
+				break;
+			}
+			square = square.multiply(square, arithmetic);
+		}
+		return result == null ? identity(size, arithmetic) : result;
+	}
+
+	/**
+	 * Multiply this matrix by another given matrix. Both must have the same size and hold
+	 * values in the range of the arithmetic.
+	 * @param right - The right side of the matrix operation
+	 * @param arithmetic - The arithmetic of the entries
+	 * @return the calculated matrix or null if the calculation is not possible
+	 */
+	public LongMatrix multiply(LongMatrix right, Arithmetic arithmetic) {
+		// Check that these matrices have the same size.
+		if (right.getSize() != this.getSize())
+			return null;
+
+		long[][] result = new long[size][size];
+		int bands = (size + BAND - 1) / BAND;
+		IntStream range = IntStream.range(0, bands);
+		if ((long) size * size * size > PARALLEL_THRESHOLD) {
+			range = range.parallel();
+		}
+		range.forEach(band -> multiplyRows(matrix, right.matrix, result, band * BAND, Math.min(size, (band + 1) * BAND), arithmetic));
+		return new LongMatrix(result);
+	}
+
+	/**
+	 * Multiplies a band of rows of the left matrix by the right matrix. The loops are in the
+	 * same tiled i-k-j order as SquareMatrix.multiply, with one inner loop for each arithmetic.
+	 * @param left
+	 * @param right
+	 * @param result
+	 * @param fromRow - The first row of the band
+	 * @param toRow - One past the last row of the band
+	 * @param arithmetic
+	 */
+	private static void multiplyRows(long[][] left, long[][] right, long[][] result, int fromRow, int toRow, Arithmetic arithmetic) {
+		int size = right.length;
+		Arithmetic.Kind kind = arithmetic.getKind();
+		long modulus = arithmetic.getModulus();
+		for (int kTile = 0; kTile < size; kTile += TILE) {
+			int kEnd = Math.min(kTile + TILE, size);
+			for (int jTile = 0; jTile < size; jTile += TILE) {
+				int jEnd = Math.min(jTile + TILE, size);
+				for (int row = fromRow; row < toRow; row++) {
+					long[] leftRow = left[row];
+					long[] resultRow = result[row];
+					for (int k = kTile; k < kEnd; k++) {
+						long factor = leftRow[k];
+						if (factor == 0) {
+							continue;
+						}
+						long[] rightRow = right[k];
+						switch (kind) {
+						case EXACT:
+							for (int col = jTile; col < jEnd; col++) {
+								resultRow[col] = Math.addExact(resultRow[col], Math.multiplyExact(factor, rightRow[col]));
+							}
+							break;
+						case SATURATING:
+							for (int col = jTile; col < jEnd; col++) {
+								resultRow[col] = Arithmetic.saturatedAdd(resultRow[col], Arithmetic.saturatedMultiply(factor, rightRow[col]));
+							}
+							break;
+						case BOOLEAN:
+							for (int col = jTile; col < jEnd; col++) {
+								resultRow[col] |= rightRow[col];
+							}
+							break;
+						case MODULAR:
+							for (int col = jTile; col < jEnd; col++) {
+								resultRow[col] = (resultRow[col] + factor * rightRow[col]) % modulus;
+							}
+							break;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a copy of this matrix with every entry brought into the range of the arithmetic.
+	 * @param arithmetic
+	 * @return the copy
+	 */
+	public LongMatrix normalize(Arithmetic arithmetic) {
+		long[][] copy = new long[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				copy[row][col] = arithmetic.normalize(matrix[row][col]);
+			}
+		}
+		return new LongMatrix(copy);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				sb.append(matrix[row][col] + " ");
+			}
+			sb.append("\n");
+		}
+		return sb.toString();
+	}
+
+}
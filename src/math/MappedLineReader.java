@@ -0,0 +1,135 @@
+package math;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a file through a memory-mapped view of it, without copying them.
+ *
+ * The file is mapped in windows. Each call to next finds the next line break in the current
+ * window and leaves the line as a range of bytes in getBuffer(). A line that runs past the end
+ * of the window is mapped again from its start, with a larger window if it needs one.
+ * @author Gunnar Arnesen
+ *
+ */
+public class MappedLineReader implements Closeable {
+
+	/** The size of the windows the file is mapped in, unless a line needs more **/
+	private static final int WINDOW = 64 << 20;
+
+	private FileChannel channel;
+	private long fileSize;
+	private int windowSize;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private int position;
+
+	private int start;
+	private int end;
+	private long lineNumber;
+
+	/**
+	 * Opens a file for reading.
+	 * @param file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MappedLineReader(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		fileSize = channel.size();
+		windowSize = WINDOW;
+	}
+
+	/**
+	 * Moves to the next line of the file.
+	 * @return true if there is a line, false at the end of the file
+	 * @throws IOException if the file cannot be read or a line does not fit in a window
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			if (window == null || position >= window.limit()) {
+				if (windowStart + position >= fileSize) {
+					return false;
+				}
+				map(windowStart + position);
+			}
+
+			// Look for the end of the line
+			int limit = window.limit();
+			int index = position;
+			while (index < limit && window.get(index) != '\n') {
+				index++;
+			}
+			if (index < limit || windowStart + limit == fileSize) {
+				start = position;
+				end = index > start && window.get(index - 1) == '\r' ? index - 1 : index;
+				position = Math.min(index + 1, limit);
+				lineNumber++;
+				return true;
+			}
+
+			// The line runs past the window, so map it again from its start
+			if (position == 0) {
+				if (windowSize == Integer.MAX_VALUE) {
+					throw new IOException("Line " + (lineNumber + 1) + " is too long to map.");
+				}
+				windowSize = (int) Math.min(Integer.MAX_VALUE, windowSize * 2L);
+			}
+			map(windowStart + position);
+		}
+	}
+
+	/**
+	 * Maps the window starting at the given offset of the file.
+	 * @param offset
+	 * @throws IOException
+	 */
+	private void map(long offset) throws IOException {
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, fileSize - offset));
+		windowStart = offset;
+		position = 0;
+	}
+
+	/**
+	 * Gets the buffer holding the current line. The buffer stays valid after moving to the
+	 * next line, even if that line is in a new window.
+	 * @return the buffer
+	 */
+	public MappedByteBuffer getBuffer() {
+		return window;
+	}
+
+	/**
+	 * Gets the index of the first byte of the current line in the buffer.
+	 * @return the start of the line
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Gets the index one past the last byte of the current line in the buffer, not counting
+	 * the line break.
+	 * @return the end of the line
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Gets the number of the current line.
+	 * @return the line number, starting at 1
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,251 @@
+package math;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Minimum spanning forests for large weighted graphs.
+ *
+ * Unlike PrimsAlgorithm, which grows one tree from one vertex, these engines work on a flat
+ * list of edges and return the minimum spanning tree of every component at once:
+ *    - boruvka: rounds of Boruvka's algorithm with the edges of each round split across cores
+ *      and components joined through a lock-free ConcurrentUnionFind
+ *    - kruskal: Kruskal's algorithm on the edges sorted by weight, on a single thread
+ * Edges are ordered by weight and then by their index in the list, so every tie is broken the
+ * same way and both engines find the same forest. For a connected graph its total weight is
+ * the one PrimsAlgorithm reports.
+ * @author Gunnar Arnesen
+ *
+ */
+public class MinimumSpanningForest {
+
+	/** Graphs with fewer edges than this are always run through kruskal **/
+	private static final int PARALLEL_MIN_EDGES = 1 << 16;
+
+	private MinimumSpanningForest() {}
+
+	/**
+	 * Computes the minimum spanning forest, using boruvka when there is more than one core and
+	 * enough edges to keep them busy, and kruskal otherwise.
+	 * @param graph
+	 * @return the SpanningTree holding the edges of the forest
+	 */
+	public static SpanningTree compute(Graph graph) {
+		EdgeList edges = new EdgeList(graph.getStorage());
+		if (ForkJoinPool.getCommonPoolParallelism() > 1 && edges.count >= PARALLEL_MIN_EDGES) {
+			return boruvka(edges);
+		}
+		return kruskal(edges);
+	}
+
+	/**
+	 * Computes the minimum spanning forest with parallel rounds of Boruvka's algorithm.
+	 * @param graph
+	 * @return the SpanningTree holding the edges of the forest
+	 */
+	public static SpanningTree boruvka(Graph graph) {
+		return boruvka(new EdgeList(graph.getStorage()));
+	}
+
+	/**
+	 * Computes the minimum spanning forest with Kruskal's algorithm.
+	 * @param graph
+	 * @return the SpanningTree holding the edges of the forest
+	 */
+	public static SpanningTree kruskal(Graph graph) {
+		return kruskal(new EdgeList(graph.getStorage()));
+	}
+
+	/**
+	 * Every round, each component picks its lightest edge to another component, in parallel
+	 * over the edges, and then all picked edges are joined in parallel over the components.
+	 * The number of components at least halves each round. Edges inside a component are
+	 * dropped from later rounds.
+	 * @param edges
+	 * @return the SpanningTree
+	 */
+	private static SpanningTree boruvka(EdgeList edges) {
+		int size = edges.size;
+		ConcurrentUnionFind components = new ConcurrentUnionFind(size);
+		AtomicIntegerArray lightest = new AtomicIntegerArray(size);
+		boolean[] inForest = new boolean[edges.count];
+		int[] active = IntStream.range(0, edges.count).toArray();
+
+		while (active.length > 0) {
+			GraphAnalysis.checkInterrupted();
+			for (int i = 0; i < size; i++) {
+				lightest.set(i, -1);
+			}
+
+			// Each component keeps the lightest edge leaving it. Edges inside a component are left out.
+			active = Arrays.stream(active).parallel().filter(edge -> {
+				int a = components.find(edges.from[edge]);
+				int b = components.find(edges.to[edge]);
+				if (a == b) {
+					return false;
+				}
+				offer(edges, lightest, a, edge);
+				offer(edges, lightest, b, edge);
+				return true;
+			}).toArray();
+			if (active.length == 0) {
+				break;
+			}
+
+			// Join the components along their lightest edges. An edge picked by both of its
+			// components is only added once, since the second union finds them already joined.
+			IntStream.range(0, size).parallel().forEach(component -> {
+				int edge = lightest.get(component);
+				if (edge >= 0 && components.union(edges.from[edge], edges.to[edge])) {
+					inForest[edge] = true;
+				}
+			});
+		}
+
+		int[] picked = IntStream.range(0, edges.count).filter(edge -> inForest[edge]).toArray();
+		return edges.tree(picked, picked.length);
+	}
+
+	/**
+	 * Offers an edge as the lightest edge leaving a component.
+	 * @param edges
+	 * @param lightest - The lightest edge found so far for each component
+	 * @param component
+	 * @param edge
+	 */
+	private static void offer(EdgeList edges, AtomicIntegerArray lightest, int component, int edge) {
+		while (true) {
+			int current = lightest.get(component);
+			if (current >= 0 && !edges.lighter(edge, current)) {
+				return;
+			}
+			if (lightest.compareAndSet(component, current, edge)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Sorts the edges by weight and adds every edge that joins two different components.
+	 * @param edges
+	 * @return the SpanningTree
+	 */
+	private static SpanningTree kruskal(EdgeList edges) {
+		// Sort the edges by weight, packing the weight and edge index into a long
+		long[] order = new long[edges.count];
+		for (int edge = 0; edge < edges.count; edge++) {
+			order[edge] = ((long) edges.weight[edge] << 32) | edge;
+		}
+		Arrays.sort(order);
+
+		// Add each edge that joins two components, with a sequential union-find
+		int[] parent = new int[edges.size];
+		for (int i = 0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		int[] picked = new int[Math.max(0, edges.size - 1)];
+		int count = 0;
+		for (int i = 0; i < order.length && count < picked.length; i++) {
+			if ((i & 1023) == 0) {
+				GraphAnalysis.checkInterrupted();
+			}
+			int edge = (int) order[i];
+			int a = find(parent, edges.from[edge]);
+			int b = find(parent, edges.to[edge]);
+			if (a != b) {
+				parent[a] = b;
+				picked[count++] = edge;
+			}
+		}
+		return edges.tree(picked, count);
+	}
+
+	/**
+	 * Finds the root of an item in a sequential union-find, halving the path on the way.
+	 * @param parent
+	 * @param item
+	 * @return the root
+	 */
+	private static int find(int[] parent, int item) {
+		while (parent[item] != item) {
+			parent[item] = parent[parent[item]];
+			item = parent[item];
+		}
+		return item;
+	}
+
+	/**
+	 * The edges of an undirected graph as primitive arrays. Each edge is listed once, from its
+	 * lower vertex to its higher one. Self loops are left out as they are never in a forest.
+	 */
+	private static class EdgeList {
+		int size;
+		int count;
+		int[] from;
+		int[] to;
+		int[] weight;
+
+		public EdgeList(AdjacencyStorage am) {
+			size = am.getSize();
+			int[] adjacent = new int[size];
+			int[] weights = new int[size];
+
+			// Count the edges, then fill the arrays.
+			for (int vertex = 0; vertex < size; vertex++) {
+				GraphAnalysis.checkInterrupted();
+				int degree = am.neighbors(vertex, adjacent);
+				for (int i = 0; i < degree; i++) {
+					if (adjacent[i] > vertex) {
+						count++;
+					}
+				}
+			}
+			from = new int[count];
+			to = new int[count];
+			weight = new int[count];
+			int edge = 0;
+			for (int vertex = 0; vertex < size; vertex++) {
+				GraphAnalysis.checkInterrupted();
+				int degree = am.neighbors(vertex, adjacent, weights);
+				for (int i = 0; i < degree; i++) {
+					if (adjacent[i] > vertex) {
+						from[edge] = vertex;
+						to[edge] = adjacent[i];
+						weight[edge++] = weights[i];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Orders edges by weight, then by index.
+		 * @param a
+		 * @param b
+		 * @return true if edge a comes before edge b, false otherwise
+		 */
+		boolean lighter(int a, int b) {
+			return weight[a] < weight[b] || (weight[a] == weight[b] && a < b);
+		}
+
+		/**
+		 * Creates a SpanningTree from the first picked edges.
+		 * @param picked - The indices of the edges in the tree
+		 * @param count - The number of edges picked
+		 * @return the SpanningTree
+		 */
+		SpanningTree tree(int[] picked, int count) {
+			int[] treeFrom = new int[count];
+			int[] treeTo = new int[count];
+			int[] treeWeight = new int[count];
+			for (int i = 0; i < count; i++) {
+				treeFrom[i] = from[picked[i]];
+				treeTo[i] = to[picked[i]];
+				treeWeight[i] = weight[picked[i]];
+			}
+			return new SpanningTree(treeFrom, treeTo, treeWeight);
+		}
+	}
+
+}
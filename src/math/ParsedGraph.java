@@ -0,0 +1,52 @@
+package math;
+
+/**
+ * One graph read from a line of the comma-separated graph format: its adjacency storage and,
+ * if the line had one, the pair of vertices to find a shortest path between.
+ * @author Gunnar Arnesen
+ *
+ */
+public class ParsedGraph {
+
+	private AdjacencyStorage storage;
+	private int[] vertexPair;
+	private long line;
+
+	/**
+	 * Creates a new ParsedGraph.
+	 * @param storage
+	 * @param vertexPair - The two vertices appended to the line, or null
+	 * @param line - The line number, starting at 1
+	 */
+	ParsedGraph(AdjacencyStorage storage, int[] vertexPair, long line) {
+		this.storage = storage;
+		this.vertexPair = vertexPair;
+		this.line = line;
+	}
+
+	/**
+	 * Gets the storage holding the adjacency matrix.
+	 * @return the storage
+	 */
+	public AdjacencyStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Gets the pair of vertices appended to the line. The vertices are numbered from 1, as
+	 * shortestPath expects them.
+	 * @return the pair, or null if the line had none
+	 */
+	public int[] getVertexPair() {
+		return vertexPair;
+	}
+
+	/**
+	 * Gets the number of the line the graph was read from.
+	 * @return the line number, starting at 1
+	 */
+	public long getLine() {
+		return line;
+	}
+
+}
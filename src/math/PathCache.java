@@ -0,0 +1,296 @@
+package math;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of shortest paths, keyed by the (start, end) pair packed into a long.
+ *
+ * The entries live in parallel arrays: the keys, the paths and the links of a doubly linked
+ * list from the most to the least recently used entry. An open addressing table with linear
+ * probing maps a key to its entry, so neither a lookup nor a hit allocates anything. Once the
+ * cache is full, adding a path evicts the least recently used one. The arrays start small and
+ * grow up to the capacity, so a graph that only answers a few queries stays small.
+ *
+ * A PathCache is not safe to share between threads.
+ * @author Gunnar Arnesen
+ *
+ */
+public class PathCache {
+
+	/** The number of paths a cache holds unless the system property math.pathCache.size is set **/
+	public static final int DEFAULT_CAPACITY = Integer.getInteger("math.pathCache.size", 1024);
+
+	/** Stored for a pair with no path between them **/
+	static final int[] NO_PATH = new int[0];
+
+	private static final int INITIAL_SLOTS = 16;
+
+	private final int capacity;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	// The entries, allocated on the first put
+	private long[] keys;
+	private int[][] paths;
+	private int[] newer;
+	private int[] older;
+	private int newest = -1;
+	private int oldest = -1;
+	private int size;
+
+	/** The index of each entry plus 1 at the position of its key, or 0 for an empty position **/
+	private int[] table;
+	private int mask;
+
+	/**
+	 * Creates a new PathCache.
+	 * @param capacity - The most paths it holds, at least 1
+	 */
+	public PathCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity of a PathCache needs to be at least 1.");
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Packs a pair of vertices into a key.
+	 * @param start
+	 * @param end
+	 * @return the key
+	 */
+	public static long key(int start, int end) {
+		return (long) start << 32 | (end & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the path stored for a key and marks it as the most recently used. The array is the
+	 * one that is stored, so it must not be changed.
+	 * @param key
+	 * @return the path, NO_PATH if there is no path, or null if nothing is stored
+	 */
+	int[] get(long key) {
+		int position = table == null ? -1 : find(key);
+		if (position < 0) {
+			misses++;
+			return null;
+		}
+		hits++;
+		int entry = table[position] - 1;
+		touch(entry);
+		return paths[entry];
+	}
+
+	/**
+	 * Stores the path of a key as the most recently used, evicting the least recently used
+	 * path if the cache is full.
+	 * @param key
+	 * @param path - The path, or NO_PATH if there is no path
+	 * @return true if a path was evicted, false otherwise
+	 */
+	boolean put(long key, int[] path) {
+		if (table == null) {
+			allocate(Math.min(capacity, INITIAL_SLOTS));
+		}
+		int position = find(key);
+		if (position >= 0) {
+			int entry = table[position] - 1;
+			paths[entry] = path;
+			touch(entry);
+			return false;
+		}
+
+		// Take a new entry, or the least recently used one once the cache is full
+		int entry;
+		boolean evicted = false;
+		if (size == capacity) {
+			entry = oldest;
+			removeKey(keys[entry]);
+			unlink(entry);
+			evictions++;
+			evicted = true;
+			position = find(key);
+		} else {
+			if (size == keys.length) {
+				allocate(Math.min(capacity, keys.length * 2));
+				position = find(key);
+			}
+			entry = size++;
+		}
+		keys[entry] = key;
+		paths[entry] = path;
+		table[~position] = entry + 1;
+		link(entry);
+		return evicted;
+	}
+
+	/**
+	 * Removes every path, keeping the counts of hits, misses and evictions.
+	 */
+	public void clear() {
+		keys = null;
+		paths = null;
+		newer = null;
+		older = null;
+		table = null;
+		newest = -1;
+		oldest = -1;
+		size = 0;
+	}
+
+	/**
+	 * Gets the most paths the cache holds.
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of paths held.
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of lookups that found a path.
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that found nothing.
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of paths evicted to make room for others.
+	 * @return the evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Finds the position of a key in the table.
+	 * @param key
+	 * @return the position, or the bitwise complement of the empty position it would go in
+	 */
+	private int find(long key) {
+		int position = hash(key) & mask;
+		while (table[position] != 0) {
+			if (keys[table[position] - 1] == key) {
+				return position;
+			}
+			position = (position + 1) & mask;
+		}
+		return ~position;
+	}
+
+	/**
+	 * Removes a key from the table, moving the keys after it back so no probe is cut short.
+	 * @param key - A key in the table
+	 */
+	private void removeKey(long key) {
+		int hole = find(key);
+		int position = hole;
+		while (true) {
+			position = (position + 1) & mask;
+			if (table[position] == 0) {
+				break;
+			}
+
+			// Move the key back unless its home lies cyclically after the hole
+			int home = hash(keys[table[position] - 1]) & mask;
+			if (position > hole ? home <= hole || home > position : home <= hole && home > position) {
+				table[hole] = table[position];
+				hole = position;
+			}
+		}
+		table[hole] = 0;
+	}
+
+	/**
+	 * Grows the entries to a number of slots and rebuilds the table for them.
+	 * @param slots
+	 */
+	private void allocate(int slots) {
+		keys = keys == null ? new long[slots] : Arrays.copyOf(keys, slots);
+		paths = paths == null ? new int[slots][] : Arrays.copyOf(paths, slots);
+		newer = newer == null ? new int[slots] : Arrays.copyOf(newer, slots);
+		older = older == null ? new int[slots] : Arrays.copyOf(older, slots);
+		table = new int[Integer.highestOneBit(slots * 2 - 1) * 2];
+		mask = table.length - 1;
+		for (int entry = 0; entry < size; entry++) {
+			table[~find(keys[entry])] = entry + 1;
+		}
+	}
+
+	/**
+	 * Marks an entry as the most recently used.
+	 * @param entry
+	 */
+	private void touch(int entry) {
+		if (entry != newest) {
+			unlink(entry);
+			link(entry);
+		}
+	}
+
+	/**
+	 * Puts an entry at the front of the list, as the most recently used.
+	 * @param entry
+	 */
+	private void link(int entry) {
+		newer[entry] = -1;
+		older[entry] = newest;
+		if (newest >= 0) {
+			newer[newest] = entry;
+		}
+		newest = entry;
+		if (oldest < 0) {
+			oldest = entry;
+		}
+	}
+
+	/**
+	 * Takes an entry out of the list.
+	 * @param entry
+	 */
+	private void unlink(int entry) {
+		if (newer[entry] >= 0) {
+			older[newer[entry]] = older[entry];
+		} else {
+			newest = older[entry];
+		}
+		if (older[entry] >= 0) {
+			newer[older[entry]] = newer[entry];
+		} else {
+			oldest = newer[entry];
+		}
+	}
+
+	/**
+	 * Spreads the bits of a key so pairs with the same start do not collide.
+	 * @param key
+	 * @return the hash
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "PathCache: " + size + "/" + capacity + " paths, " + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+	}
+
+}
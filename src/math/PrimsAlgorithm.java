@@ -2,9 +2,12 @@ package math;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Random;
 
+import utils.AsyncLogger.Level;
+import utils.Metrics;
 import utils.Utils;
 
 /**
@@ -16,15 +19,27 @@ import utils.Utils;
  */
 public class PrimsAlgorithm extends Graph {
 
+	/** The seed of the random start vertex, unless setSeed is called **/
+	public static final long DEFAULT_SEED = 1;
+
+	private static final Metrics.Timer STEP_TIMER = Metrics.timer("prim.stepForward");
+	private static final Metrics.Timer TRACE_TIMER = Metrics.timer("prim.spanningTree");
+
 	/**
 	 * Create a WeightedGraph from a SquareMatrix (adjacency matrix).
 	 * @param am
 	 */
 	public PrimsAlgorithm(SquareMatrix am) {
+		this((AdjacencyStorage) am);
+	}
+
+	/**
+	 * Create a WeightedGraph from any storage of its adjacency matrix.
+	 * @param am
+	 */
+	public PrimsAlgorithm(AdjacencyStorage am) {
 		super(am);
-		edgesVisited = new ArrayList<Point>();
-		verticesVisited = new ArrayList<Integer>();
-		currentWeight = 0;
+		random = new Random(DEFAULT_SEED);
 	}
 
 	/**
@@ -33,60 +48,250 @@ public class PrimsAlgorithm extends Graph {
 	 */
 	public PrimsAlgorithm(String amRepresentation) {
 		super(amRepresentation);
-		edgesVisited = new ArrayList<Point>();
-		verticesVisited = new ArrayList<Integer>();
-		currentWeight = 0;
+		random = new Random(DEFAULT_SEED);
+	}
+
+	/**
+	 * The trace of the steps. The spanning tree is computed once from the start vertex, then
+	 * each step only moves the step count. Step 1 visits the start vertex and step i + 2 adds
+	 * edge i of the tree. For each vertex, the step it joins at and its parent in the tree are
+	 * kept so a vertex or edge can be checked in O(1).
+	 */
+	private Random random;
+	private SpanningTree trace;
+	private int startVertex;
+	private int steps;
+	private int[] joinedAt;
+	private int[] treeParent;
+	private long[] weightAt;
+
+	/**
+	 * Sets the seed used to pick the start vertex, so the steps can be reproduced.
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
 	}
 
-	private List<Point> edgesVisited; 
-	private List<Integer> verticesVisited;
-	private int currentWeight;
-	
 	/**
 	 * Steps forward once in Prim's algorithm. This is defined by either getting
-	 * a random vertex if this is the first step or adding a vertex adjacent to
-	 * one of the current visited vertices that has the least-expensive edge.
+	 * a random vertex if this is the first step or adding the next edge of the
+	 * minimum spanning tree grown from that vertex. The tree is computed in full
+	 * on the first step, so each later step takes O(1) time.
 	 * @return true if a step is performed, false otherwise
 	 */
 	public boolean stepForward() {
-		//  All the vertices have visited.
-		if (verticesVisited.size() == this.getNumberVertices()) {
-			Utils.log("Prim", "Total weight of minimal spanning tree: " + currentWeight);
+		long start = STEP_TIMER.start();
+		boolean stepped = step();
+		STEP_TIMER.stop(start);
+		return stepped;
+	}
+
+	/**
+	 * Takes the next step, see stepForward.
+	 * @return true if a step is performed, false otherwise
+	 */
+	private boolean step() {
+		// The algorithm is taking the first step, pick a random vertex and grow the tree from it.
+		if (steps == 0) {
+			if (this.getNumberVertices() == 0) {
+				return false;
+			}
+			startTrace(random.nextInt(this.getNumberVertices()));
+			steps = 1;
+			Utils.log(Level.DEBUG, "Prim", () -> "Added random vertex " + (startVertex + 1));
+			return true;
+		}
+
+		//  All the vertices that can be reached have been visited.
+		if (steps == trace.getEdgeCount() + 1) {
+			Utils.log(Level.DEBUG, "Prim", () -> "Total weight of minimal spanning tree: " + weightAt[steps]);
 			return false;
 		}
 
-		// The algorithm is taking the first step, pick a random vertex.
-		if (verticesVisited.size() == 0) {
-			int vertex = (int) (Math.random() * this.getNumberVertices());
-			verticesVisited.add(vertex);
-			Utils.log("Prim", "Added random vertex " + (vertex + 1));
-			return true;
+		// Take the next least-expensive edge with one vertex in the tree and one not.
+		int edge = steps - 1;
+		steps++;
+
+		// Log the data, building the message only if it is written
+		Utils.log(Level.DEBUG, "Prim", () -> new StringBuilder("Using edge ").append(trace.getFrom(edge) + 1).append("-").append(trace.getTo(edge) + 1)
+				.append(", with weight ").append(trace.getWeight(edge)).toString());
+
+		return true;
+	}
+
+	/**
+	 * Computes the spanning tree from the start vertex and indexes it by vertex.
+	 * @param start
+	 */
+	private void startTrace(int start) {
+		int size = getNumberVertices();
+		startVertex = start;
+		long startNanos = TRACE_TIMER.start();
+		trace = computeMinimumSpanningTree(start);
+		TRACE_TIMER.stop(startNanos);
+		joinedAt = new int[size];
+		treeParent = new int[size];
+		weightAt = new long[trace.getEdgeCount() + 2];
+		Arrays.fill(joinedAt, Integer.MAX_VALUE);
+		Arrays.fill(treeParent, -1);
+		joinedAt[start] = 1;
+		for (int edge = 0; edge < trace.getEdgeCount(); edge++) {
+			joinedAt[trace.getTo(edge)] = edge + 2;
+			treeParent[trace.getTo(edge)] = trace.getFrom(edge);
+			weightAt[edge + 2] = weightAt[edge + 1] + trace.getWeight(edge);
 		}
+	}
+
+	/**
+	 * Computes the minimum spanning tree grown from vertex 0. If the graph is not connected,
+	 * this is the tree of the component of vertex 0.
+	 * @return the SpanningTree
+	 */
+	public SpanningTree computeMinimumSpanningTree() {
+		return computeMinimumSpanningTree(0);
+	}
 
-		// Pick a least-expensive edge with one vertex in the array and one not.
-		int minEdge = Integer.MAX_VALUE;
-		int curVertex = -1;
-		int newVertex = -1;
-		SquareMatrix am = getAdjacencyMatrix();
-		for (int vertex : verticesVisited) {
-			List<Integer> uniqueAdjacentVertices = getAdjacentVertices(vertex).stream().filter(v -> !verticesVisited.contains(v)).collect(Collectors.toList());
-			for (int adjVertex : uniqueAdjacentVertices) {
-				if (minEdge > am.get(vertex, adjVertex)) {
-					minEdge = am.get(vertex, adjVertex);
-					curVertex = vertex;
-					newVertex = adjVertex;
+	/**
+	 * Computes the minimum spanning tree grown from the given vertex in one run of Prim's
+	 * algorithm. Sparse graphs use an indexed heap in O(E log V) time and dense graphs an
+	 * array of keys in O(V^2) time, whichever is less for this graph.
+	 * @param start
+	 * @return the SpanningTree of the component of the start vertex
+	 */
+	public SpanningTree computeMinimumSpanningTree(int start) {
+		AdjacencyStorage am = getStorage();
+		int size = am.getSize();
+		if (start < 0 || start >= size) {
+			throw new IllegalArgumentException("Vertex " + start + " is not in the graph.");
+		}
+		double log = Math.max(1, 32 - Integer.numberOfLeadingZeros(size));
+		if (am.getEntryCount() * log < (double) size * size) {
+			return heapPrim(am, start);
+		}
+		return densePrim(am, start);
+	}
+
+	/**
+	 * Prim's algorithm with the vertices outside the tree in an IndexedMinHeap, keyed by the
+	 * weight of their lightest edge into the tree.
+	 * @param am
+	 * @param start
+	 * @return the SpanningTree
+	 */
+	private static SpanningTree heapPrim(AdjacencyStorage am, int start) {
+		int size = am.getSize();
+		int[] parent = new int[size];
+		boolean[] inTree = new boolean[size];
+		int[] adjacent = new int[size];
+		int[] weights = new int[size];
+		int[] from = new int[size - 1];
+		int[] to = new int[size - 1];
+		int[] weight = new int[size - 1];
+		int edges = 0;
+
+		IndexedMinHeap heap = new IndexedMinHeap(size);
+		heap.push(start, 0);
+		parent[start] = -1;
+		while (!heap.isEmpty()) {
+			GraphAnalysis.checkInterrupted();
+			int vertex = heap.pop();
+			inTree[vertex] = true;
+			if (parent[vertex] >= 0) {
+				from[edges] = parent[vertex];
+				to[edges] = vertex;
+				weight[edges++] = (int) heap.keyOf(vertex);
+			}
+
+			// Offer the edges of the new vertex to the vertices outside the tree
+			int count = am.neighbors(vertex, adjacent, weights);
+			for (int i = 0; i < count; i++) {
+				int adjVertex = adjacent[i];
+				if (inTree[adjVertex]) {
+					continue;
+				}
+				if (!heap.contains(adjVertex)) {
+					parent[adjVertex] = vertex;
+					heap.push(adjVertex, weights[i]);
+				} else if (weights[i] < heap.keyOf(adjVertex)) {
+					parent[adjVertex] = vertex;
+					heap.decreaseKey(adjVertex, weights[i]);
 				}
 			}
 		}
-		edgesVisited.add(new Point(curVertex, newVertex));
-		verticesVisited.add(newVertex);
-		currentWeight += minEdge;
+		return trim(from, to, weight, edges);
+	}
 
-		// Log the data
-		StringBuilder sb = new StringBuilder("Using edge ").append(curVertex + 1).append("-").append(newVertex + 1).append(", with weight ").append(minEdge);
-		Utils.log("Prim", sb.toString());
+	/**
+	 * Prim's algorithm with the weight of the lightest edge into the tree kept in an array
+	 * for every vertex. Each step scans the array for the lightest one.
+	 * @param am
+	 * @param start
+	 * @return the SpanningTree
+	 */
+	private static SpanningTree densePrim(AdjacencyStorage am, int start) {
+		int size = am.getSize();
+		int[] key = new int[size];
+		int[] parent = new int[size];
+		boolean[] inTree = new boolean[size];
+		int[] adjacent = new int[size];
+		int[] weights = new int[size];
+		int[] from = new int[size - 1];
+		int[] to = new int[size - 1];
+		int[] weight = new int[size - 1];
+		int edges = 0;
 
-		return true;
+		Arrays.fill(key, Integer.MAX_VALUE);
+		key[start] = 0;
+		parent[start] = -1;
+		int vertex = start;
+		while (vertex >= 0) {
+			GraphAnalysis.checkInterrupted();
+			inTree[vertex] = true;
+			if (parent[vertex] >= 0) {
+				from[edges] = parent[vertex];
+				to[edges] = vertex;
+				weight[edges++] = key[vertex];
+			}
+
+			// Offer the edges of the new vertex to the vertices outside the tree
+			int count = am.neighbors(vertex, adjacent, weights);
+			for (int i = 0; i < count; i++) {
+				int adjVertex = adjacent[i];
+				if (!inTree[adjVertex] && weights[i] < key[adjVertex]) {
+					key[adjVertex] = weights[i];
+					parent[adjVertex] = vertex;
+				}
+			}
+
+			// Pick the vertex outside the tree with the lightest edge into it
+			vertex = -1;
+			int minKey = Integer.MAX_VALUE;
+			for (int v = 0; v < size; v++) {
+				if (!inTree[v] && key[v] < minKey) {
+					minKey = key[v];
+					vertex = v;
+				}
+			}
+		}
+		return trim(from, to, weight, edges);
+	}
+
+	/**
+	 * Creates a SpanningTree from the first edges of the arrays.
+	 * @param from
+	 * @param to
+	 * @param weight
+	 * @param edges - The number of edges used
+	 * @return the SpanningTree
+	 */
+	private static SpanningTree trim(int[] from, int[] to, int[] weight, int edges) {
+		if (edges < from.length) {
+			from = Arrays.copyOf(from, edges);
+			to = Arrays.copyOf(to, edges);
+			weight = Arrays.copyOf(weight, edges);
+		}
+		return new SpanningTree(from, to, weight);
 	}
 
 	/**
@@ -96,45 +301,129 @@ public class PrimsAlgorithm extends Graph {
 	 */
 	public boolean stepBackward() {
 		// There are no vertices so we cannot step backwards in the algorithm.
-		if (verticesVisited.size() == 0) {
-			Utils.log("Prim", "Cannot step back more");
+		if (steps == 0) {
+			Utils.log(Level.DEBUG, "Prim", "Cannot step back more");
 			return false;
 		}
 
 		// Remove the last step made.
-		int vertex = verticesVisited.remove(verticesVisited.size() - 1);
-		if (edgesVisited.size() > 0) {
-			Point edge = edgesVisited.remove(edgesVisited.size() - 1);
-			currentWeight -= getAdjacencyMatrix().get(edge.x, edge.y);
-			Utils.log("Prim", "Removed vertex " + (vertex+1) + " and edge " + (edge.x+1) + "-" + (edge.y+1));
+		steps--;
+		if (steps > 0) {
+			int edge = steps - 1;
+			int vertex = trace.getTo(edge);
+			Utils.log(Level.DEBUG, "Prim", () -> "Removed vertex " + (vertex+1) + " and edge " + (trace.getFrom(edge)+1) + "-" + (vertex+1));
 		} else {
-			Utils.log("Prim", "Removed vertex " + (vertex+1));
+			Utils.log(Level.DEBUG, "Prim", () -> "Removed vertex " + (startVertex+1));
 		}
 
 		return true;
 	}
 
 	/**
-	 * Resets the algorithm by clearing the list.
+	 * Moves straight to the given step. Step 0 is before the start vertex is picked and the
+	 * last step adds the last edge of the tree.
+	 * @param step - The step to move to, clamped to the steps there are
+	 */
+	public void seekTo(int step) {
+		if (step > 0 && steps == 0) {
+			if (this.getNumberVertices() == 0) {
+				return;
+			}
+			startTrace(random.nextInt(this.getNumberVertices()));
+		}
+		steps = Math.max(0, Math.min(step, trace == null ? 0 : trace.getEdgeCount() + 1));
+	}
+
+	/**
+	 * Gets the number of steps performed so far.
+	 * @return the current step
+	 */
+	public int getStep() {
+		return steps;
+	}
+
+	/**
+	 * Gets the total weight of the edges visited so far.
+	 * @return the current weight
+	 */
+	public long getCurrentWeight() {
+		return steps == 0 ? 0 : weightAt[steps];
+	}
+
+	/**
+	 * Resets the algorithm by forgetting the steps and the spanning tree.
 	 */
 	public void reset() {
-		verticesVisited.clear();
+		steps = 0;
+		trace = null;
 	}
 
 	/**
-	 * Gets a list of vertices that have been visited.
+	 * Gets a list of vertices that have been visited, in the order they were visited.
 	 * @return the list of visited vertices
 	 */
 	public List<Integer> getVerticesVisited() {
-		return verticesVisited;
+		List<Integer> vertices = new ArrayList<Integer>(steps);
+		if (steps > 0) {
+			vertices.add(startVertex);
+		}
+		for (int edge = 0; edge < steps - 1; edge++) {
+			vertices.add(trace.getTo(edge));
+		}
+		return vertices;
 	}
 
 	/**
-	 * Get a list of edges that have been visited.
+	 * Get a list of edges that have been visited, in the order they were visited.
 	 * @return the list of visited edges
 	 */
 	public List<Point> getEdgesVisited() {
-		return edgesVisited;
+		List<Point> edges = new ArrayList<Point>(Math.max(0, steps - 1));
+		for (int edge = 0; edge < steps - 1; edge++) {
+			edges.add(new Point(trace.getFrom(edge), trace.getTo(edge)));
+		}
+		return edges;
+	}
+
+	/**
+	 * Gets a visited vertex by the order it was visited in, without building a list.
+	 * @param index - From 0 up to getStep() - 1
+	 * @return the vertex
+	 */
+	public int getVisitedVertex(int index) {
+		if (index < 0 || index >= steps) {
+			throw new IllegalArgumentException("Only " + steps + " vertices have been visited.");
+		}
+		return index == 0 ? startVertex : trace.getTo(index - 1);
+	}
+
+	/**
+	 * Gets the parent of a visited vertex in the spanning tree, which is the other vertex of
+	 * the edge it was visited by.
+	 * @param vertex
+	 * @return the parent, or -1 for the start vertex and vertices that have not been visited
+	 */
+	public int getTreeParent(int vertex) {
+		return isVertexVisited(vertex) ? treeParent[vertex] : -1;
+	}
+
+	/**
+	 * Calculates the lightest paths from the source to every other vertex, using the weights
+	 * of the graph.
+	 * @param source - The source vertex, numbered from 0
+	 * @return the WeightedPathTree of the source
+	 */
+	public WeightedPathTree weightedShortestPathTree(int source) {
+		return new Dijkstra(this).search(source);
+	}
+
+	/**
+	 * Check if a given vertex has been visited.
+	 * @param vertex
+	 * @return true if the vertex is in the tree at the current step, false otherwise
+	 */
+	public boolean isVertexVisited(int vertex) {
+		return steps > 0 && joinedAt[vertex] <= steps;
 	}
 
 	/**
@@ -143,7 +432,21 @@ public class PrimsAlgorithm extends Graph {
 	 * @return
 	 */
 	public boolean seenEdge(Point edge) {
-		return edgesVisited.stream().anyMatch(e -> (e.x == edge.x && e.y == edge.y) || (e.x == edge.y && e.y == edge.x));
+		return seenEdge(edge.x, edge.y);
+	}
+
+	/**
+	 * Check if the edge between two vertices has been visited. An edge is in the tree if one
+	 * of its vertices is the parent of the other, and it has been visited if the child has.
+	 * @param a
+	 * @param b
+	 * @return true if the edge is in the tree at the current step, false otherwise
+	 */
+	public boolean seenEdge(int a, int b) {
+		if (steps == 0) {
+			return false;
+		}
+		return (treeParent[b] == a && joinedAt[b] <= steps) || (treeParent[a] == b && joinedAt[a] <= steps);
 	}
 
 }
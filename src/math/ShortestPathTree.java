@@ -0,0 +1,131 @@
+package math;
+
+import java.util.Arrays;
+
+/**
+ * The shortest paths from one source vertex to every other vertex of a Graph.
+ *
+ * The tree is computed once by a BFS and kept as two arrays: the parent of each vertex on a
+ * shortest path from the source, and its distance from the source. Any number of paths can
+ * then be read from the tree, each in time proportional to its length.
+ * @author Gunnar Arnesen
+ *
+ */
+public class ShortestPathTree {
+
+	private int source;
+	private int[] parent;
+	private int[] distance;
+
+	/**
+	 * Creates a ShortestPathTree from its arrays.
+	 * @param source
+	 * @param parent - The parent of each vertex, -1 for the source and unreachable vertices
+	 * @param distance - The distance of each vertex, -1 for unreachable vertices
+	 */
+	private ShortestPathTree(int source, int[] parent, int[] distance) {
+		this.source = source;
+		this.parent = parent;
+		this.distance = distance;
+	}
+
+	/**
+	 * Runs a BFS from the source over the adjacency storage. The neighbors of each vertex are
+	 * visited in ascending order, so ties between paths of the same length go to the path
+	 * through the lowest vertices found first.
+	 * @param am
+	 * @param source
+	 * @return the ShortestPathTree
+	 */
+	static ShortestPathTree search(AdjacencyStorage am, int source) {
+		int size = am.getSize();
+		if (source < 0 || source >= size) {
+			throw new IllegalArgumentException("Vertex " + source + " is not in the graph.");
+		}
+		int[] parent = new int[size];
+		int[] distance = new int[size];
+		Arrays.fill(parent, -1);
+		Arrays.fill(distance, -1);
+		int[] queue = new int[size];
+		int[] adjacent = new int[size];
+
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+		distance[source] = 0;
+		while (head < tail) {
+			GraphAnalysis.checkInterrupted();
+			int vertex = queue[head++];
+			int count = am.neighbors(vertex, adjacent);
+			for (int i = 0; i < count; i++) {
+				int adjVertex = adjacent[i];
+				if (distance[adjVertex] < 0) {
+					parent[adjVertex] = vertex;
+					distance[adjVertex] = distance[vertex] + 1;
+					queue[tail++] = adjVertex;
+				}
+			}
+		}
+		return new ShortestPathTree(source, parent, distance);
+	}
+
+	/**
+	 * Gets the source vertex of the tree.
+	 * @return the source
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Check if there is a path from the source to the target.
+	 * @param target
+	 * @return true if the target can be reached, false otherwise
+	 */
+	public boolean hasPathTo(int target) {
+		return distance[target] >= 0;
+	}
+
+	/**
+	 * Gets the number of edges on a shortest path from the source to the target.
+	 * @param target
+	 * @return the distance, or -1 if the target cannot be reached
+	 */
+	public int distanceTo(int target) {
+		return distance[target];
+	}
+
+	/**
+	 * Gets a shortest path from the source to the target by walking up the tree.
+	 * @param target
+	 * @return the vertices on the path, starting with the source, or null if the target
+	 * cannot be reached
+	 */
+	public int[] pathTo(int target) {
+		if (distance[target] < 0) {
+			return null;
+		}
+		int[] path = new int[distance[target] + 1];
+		for (int vertex = target, i = path.length - 1; i >= 0; vertex = parent[vertex], i--) {
+			path[i] = vertex;
+		}
+		return path;
+	}
+
+	/**
+	 * Gets the parent of every vertex, indexed by vertex.
+	 * @return an array holding the parent of each vertex, -1 for the source and unreachable vertices
+	 */
+	public int[] getParents() {
+		return parent.clone();
+	}
+
+	/**
+	 * Gets the distance of every vertex, indexed by vertex.
+	 * @return an array holding the distance of each vertex, -1 for unreachable vertices
+	 */
+	public int[] getDistances() {
+		return distance.clone();
+	}
+
+}
@@ -0,0 +1,100 @@
+package math;
+
+/**
+ * The edges of a minimum spanning tree, in the order they were added, and their total weight.
+ * For a tree grown by PrimsAlgorithm, edge i goes from the vertex getFrom(i), already in the
+ * tree, to the new vertex getTo(i). A MinimumSpanningForest holds the trees of every
+ * component in one SpanningTree.
+ * @author Gunnar Arnesen
+ *
+ */
+public class SpanningTree {
+
+	private int[] from;
+	private int[] to;
+	private int[] weight;
+	private long totalWeight;
+
+	/**
+	 * Creates a SpanningTree from its edges.
+	 * @param from - The first vertex of each edge
+	 * @param to - The second vertex of each edge
+	 * @param weight - The weight of each edge
+	 */
+	SpanningTree(int[] from, int[] to, int[] weight) {
+		this.from = from;
+		this.to = to;
+		this.weight = weight;
+		for (int w : weight) {
+			totalWeight += w;
+		}
+	}
+
+	/**
+	 * Gets the number of edges in the tree.
+	 * @return the number of edges
+	 */
+	public int getEdgeCount() {
+		return from.length;
+	}
+
+	/**
+	 * Gets the first vertex of an edge.
+	 * @param edge
+	 * @return the vertex
+	 */
+	public int getFrom(int edge) {
+		return from[edge];
+	}
+
+	/**
+	 * Gets the second vertex of an edge.
+	 * @param edge
+	 * @return the vertex
+	 */
+	public int getTo(int edge) {
+		return to[edge];
+	}
+
+	/**
+	 * Gets the weight of an edge.
+	 * @param edge
+	 * @return the weight
+	 */
+	public int getWeight(int edge) {
+		return weight[edge];
+	}
+
+	/**
+	 * Gets the first vertex of every edge.
+	 * @return an array holding the first vertex of each edge
+	 */
+	public int[] getFrom() {
+		return from.clone();
+	}
+
+	/**
+	 * Gets the second vertex of every edge.
+	 * @return an array holding the second vertex of each edge
+	 */
+	public int[] getTo() {
+		return to.clone();
+	}
+
+	/**
+	 * Gets the weight of every edge.
+	 * @return an array holding the weight of each edge
+	 */
+	public int[] getWeights() {
+		return weight.clone();
+	}
+
+	/**
+	 * Gets the sum of the weights of the edges.
+	 * @return the total weight
+	 */
+	public long getTotalWeight() {
+		return totalWeight;
+	}
+
+}
@@ -1,6 +1,8 @@
 package math;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The SquareMatrix class.
@@ -10,10 +12,12 @@ import java.util.List;
  * @author Gunnar Arnesen
  *
  */
-public class SquareMatrix {
+public class SquareMatrix implements AdjacencyStorage {
 
 	private int size;
 	private int[][] matrix;
+	/** The number of times the entries were changed **/
+	private long modCount;
 
 	/**
 	 * Creates a new SquareMatrix object.
@@ -53,6 +57,7 @@ public class SquareMatrix {
 	 * @param val
 	 */
 	public void set(int row, int col, int val) {
+		modCount++;
 		matrix[row][col] = val;
 	}
 
@@ -64,21 +69,141 @@ public class SquareMatrix {
 		return size;
 	}
 
+	@Override
+	public int degree(int vertex) {
+		int degree = 0;
+		int[] row = matrix[vertex];
+		for (int col = 0; col < size; col++) {
+			if (row[col] > 0) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	@Override
+	public int neighbors(int vertex, int[] into, int[] weights) {
+		int count = 0;
+		int[] row = matrix[vertex];
+		for (int col = 0; col < size; col++) {
+			if (row[col] > 0) {
+				if (weights != null) {
+					weights[count] = row[col];
+				}
+				into[count++] = col;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the entries greater than 0. This scans the whole matrix.
+	 * @return the number of edge entries
+	 */
+	@Override
+	public long getEntryCount() {
+		long count = 0;
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				if (matrix[row][col] > 0) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public int disconnect(int vertex) {
+		modCount++;
+		int edgesRemoved = 0;
+		for (int col = 0; col < size; col++) {
+			if (matrix[vertex][col] > 0) {
+				matrix[vertex][col] = 0;
+				matrix[col][vertex] = 0;
+				edgesRemoved++;
+			}
+		}
+		return edgesRemoved;
+	}
+
+	@Override
+	public long getModCount() {
+		return modCount;
+	}
+
+	@Override
+	public AdjacencyStorage copy() {
+		return clone();
+	}
+
+	@Override
+	public SquareMatrix toSquareMatrix() {
+		return this;
+	}
+
 	/**
-	 * Calculates the matrix to a given power.
-	 * @param power - The exponent
+	 * Calculates the matrix to a given power by repeated squaring, which takes O(log power)
+	 * multiplications. Entries that do not fit in an int wrap around; use the Arithmetic
+	 * version to avoid that.
+	 * @param power - The exponent, at least 0
 	 * @return the calculates matrix
 	 */
 	public SquareMatrix power(int power) {
-		SquareMatrix mult = this.clone();
-		for (int i = 0; i < power; i++) {
-			mult = multiply(mult);
+		if (power < 0) {
+			throw new IllegalArgumentException("Power needs to be at least 0: " + power);
+		}
+		SquareMatrix result = null;
+		SquareMatrix square = this;
+		while (true) {
+			if ((power & 1) != 0) {
+				result = result == null ? square.clone() : result.multiply(square);
+			}
+			power >>>= 1;
+			if (power == 0) {
+				break;
+			}
+			square = square.multiply(square);
+		}
+		if (result == null) {
+			result = new SquareMatrix(size);
+			for (int i = 0; i < size; i++) {
+				result.set(i, i, 1);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates the matrix to a given power by repeated squaring, with the entries added and
+	 * multiplied in the sent arithmetic.
+	 * @param power - The exponent, at least 0
+	 * @param arithmetic - The arithmetic of the entries
+	 * @return the calculated matrix
+	 */
+	public LongMatrix power(int power, Arithmetic arithmetic) {
+		return toLongMatrix().power(power, arithmetic);
+	}
+
+	/**
+	 * Copies the matrix into a LongMatrix.
+	 * @return the LongMatrix
+	 */
+	public LongMatrix toLongMatrix() {
+		LongMatrix copy = new LongMatrix(size);
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				copy.set(row, col, matrix[row][col]);
+			}
 		}
-		return mult;
+		return copy;
 	}
 
 	/**
 	 * Multiply this matrix by another given matrix. Both must have the same size!
+	 * 
+	 * The work is split into bands of rows that are multiplied in parallel on the common
+	 * ForkJoinPool. Small matrices are multiplied on the calling thread.
 	 * @param right - The right side of the matrix operation 
 	 * @return the calculated matrix or null if the calculation is not possible
 	 */
@@ -87,18 +212,89 @@ public class SquareMatrix {
 		if (right.getSize() != this.getSize())
 			return null;
 
-		// Loop through the values to compute matrix multiplication.
-		SquareMatrix result = new SquareMatrix(this.getSize());
-		for (int rightCol = 0; rightCol < right.getSize(); rightCol++) {
-			for (int leftRow = 0; leftRow < this.getSize(); leftRow++) {
-				int total = 0;
-				for (int i = 0; i < this.getSize(); i ++) {
-					total += this.get(leftRow, i) * right.get(i, rightCol);
+		int[][] result = new int[size][size];
+		if ((long) size * size * size <= PARALLEL_THRESHOLD) {
+			multiplyRows(matrix, right.matrix, result, 0, size);
+		} else {
+			int band = Math.max(1, size / (ForkJoinPool.getCommonPoolParallelism() * 4));
+			ForkJoinPool.commonPool().invoke(new RowBand(matrix, right.matrix, result, 0, size, band));
+		}
+		return new SquareMatrix(result);
+	}
+
+	/** Matrices with at most this many multiply-adds are not split across threads **/
+	private static final long PARALLEL_THRESHOLD = 1 << 18;
+	/** The width and height of the tiles the multiplication is blocked into **/
+	private static final int TILE = 128;
+
+	/**
+	 * Multiplies a band of rows of the left matrix by the right matrix.
+	 * 
+	 * The loops run row by row through the right matrix (i-k-j order), so the innermost loop
+	 * walks along rows of both the right and the result matrix. The k and j loops are blocked
+	 * into tiles so the part of the right matrix in use stays in the cache while every row of
+	 * the band passes over it. Each entry is the same sum of products as before, only added
+	 * up in a different order, so the results are identical even when they overflow.
+	 * @param left
+	 * @param right
+	 * @param result
+	 * @param fromRow - The first row of the band
+	 * @param toRow - One past the last row of the band
+	 */
+	private static void multiplyRows(int[][] left, int[][] right, int[][] result, int fromRow, int toRow) {
+		int size = right.length;
+		for (int kTile = 0; kTile < size; kTile += TILE) {
+			int kEnd = Math.min(kTile + TILE, size);
+			for (int jTile = 0; jTile < size; jTile += TILE) {
+				int jEnd = Math.min(jTile + TILE, size);
+				for (int row = fromRow; row < toRow; row++) {
+					int[] leftRow = left[row];
+					int[] resultRow = result[row];
+					for (int k = kTile; k < kEnd; k++) {
+						int factor = leftRow[k];
+						if (factor == 0) {
+							continue;
+						}
+						int[] rightRow = right[k];
+						for (int col = jTile; col < jEnd; col++) {
+							resultRow[col] += factor * rightRow[col];
+						}
+					}
 				}
-				result.set(leftRow, rightCol, total);
 			}
 		}
-		return result;
+	}
+
+	/**
+	 * A band of rows that is split in half until it is small enough to multiply directly.
+	 */
+	@SuppressWarnings("serial")
+	private static class RowBand extends RecursiveAction {
+		int[][] left;
+		int[][] right;
+		int[][] result;
+		int fromRow;
+		int toRow;
+		int band;
+		public RowBand(int[][] left, int[][] right, int[][] result, int fromRow, int toRow, int band) {
+			this.left = left;
+			this.right = right;
+			this.result = result;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.band = band;
+		}
+
+		@Override
+		protected void compute() {
+			if (toRow - fromRow <= band) {
+				multiplyRows(left, right, result, fromRow, toRow);
+				return;
+			}
+			int middle = (fromRow + toRow) >>> 1;
+			invokeAll(new RowBand(left, right, result, fromRow, middle, band),
+					new RowBand(left, right, result, middle, toRow, band));
+		}
 	}
 	
 	/**
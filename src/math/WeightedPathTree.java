@@ -0,0 +1,82 @@
+package math;
+
+/**
+ * The lightest paths from one source vertex to every other vertex of a weighted Graph.
+ *
+ * Like a ShortestPathTree, the tree is kept as the parent of each vertex on a lightest path
+ * from the source, with the total weight of that path as its distance. Distances are longs
+ * so long paths of heavy edges cannot overflow.
+ * @author Gunnar Arnesen
+ *
+ */
+public class WeightedPathTree {
+
+	private int source;
+	private int[] parent;
+	private long[] distance;
+
+	/**
+	 * Creates a WeightedPathTree from its arrays.
+	 * @param source
+	 * @param parent - The parent of each vertex, -1 for the source and unreachable vertices
+	 * @param distance - The distance of each vertex, -1 for unreachable vertices
+	 */
+	WeightedPathTree(int source, int[] parent, long[] distance) {
+		this.source = source;
+		this.parent = parent;
+		this.distance = distance;
+	}
+
+	/**
+	 * Gets the source vertex of the tree.
+	 * @return the source
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Check if there is a path from the source to the target.
+	 * @param target
+	 * @return true if the target can be reached, false otherwise
+	 */
+	public boolean hasPathTo(int target) {
+		return distance[target] >= 0;
+	}
+
+	/**
+	 * Gets the total weight of a lightest path from the source to the target.
+	 * @param target
+	 * @return the distance, or -1 if the target cannot be reached
+	 */
+	public long distanceTo(int target) {
+		return distance[target];
+	}
+
+	/**
+	 * Gets a lightest path from the source to the target by walking up the tree.
+	 * @param target
+	 * @return the vertices on the path, starting with the source, or null if the target
+	 * cannot be reached
+	 */
+	public int[] pathTo(int target) {
+		return Dijkstra.walkUp(parent, distance, target);
+	}
+
+	/**
+	 * Gets the parent of every vertex, indexed by vertex.
+	 * @return an array holding the parent of each vertex, -1 for the source and unreachable vertices
+	 */
+	public int[] getParents() {
+		return parent.clone();
+	}
+
+	/**
+	 * Gets the distance of every vertex, indexed by vertex.
+	 * @return an array holding the distance of each vertex, -1 for unreachable vertices
+	 */
+	public long[] getDistances() {
+		return distance.clone();
+	}
+
+}
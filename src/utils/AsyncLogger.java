@@ -0,0 +1,298 @@
+package utils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Writes log messages on a background thread so the threads that log never wait on the console.
+ *
+ * Messages go into a ring buffer that is allocated once, and a daemon writer thread drains it in
+ * batches, flushing the stream once per batch. Each message has a level and messages below the
+ * current level are skipped before anything is built; isLoggable only reads one volatile field,
+ * so guarding an expensive message with it, or passing a Supplier, costs nothing when the level
+ * is off. When the buffer is full a message is either dropped, and the number dropped is written
+ * once there is room, or the caller waits for room, depending on the Policy.
+ *
+ * The defaults can be changed with the system properties utils.log.level, utils.log.policy and
+ * utils.log.capacity.
+ * @author Gunnar Arnesen
+ *
+ */
+public class AsyncLogger {
+
+	/**
+	 * The levels of a message, from the least to the most important.
+	 */
+	public enum Level {
+		DEBUG, INFO, WARN, ERROR, OFF
+	}
+
+	/**
+	 * What happens to a message when the buffer is full.
+	 */
+	public enum Policy {
+		DROP, BLOCK
+	}
+
+	public static final int DEFAULT_CAPACITY = 8192;
+	/** The most messages written between two flushes of the stream **/
+	private static final int BATCH = 256;
+
+	private final PrintStream out;
+	private final Policy policy;
+	private volatile int threshold;
+
+	// The ring buffer. A slot is free again once the writer has copied it out.
+	private final String[] tags;
+	private final String[] messages;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Condition drained = lock.newCondition();
+	private long head;
+	private long tail;
+	private boolean writing;
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final Thread writer;
+
+	/**
+	 * Creates a new AsyncLogger and starts its writer thread.
+	 * @param out - Where the messages are written
+	 * @param level - The least important level that is written
+	 * @param policy - What happens to a message when the buffer is full
+	 * @param capacity - The number of messages the buffer holds
+	 */
+	public AsyncLogger(PrintStream out, Level level, Policy policy, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity needs to be at least 1.");
+		}
+		this.out = out;
+		this.policy = policy;
+		this.threshold = level.ordinal();
+		tags = new String[capacity];
+		messages = new String[capacity];
+
+		writer = new Thread(this::drain, "Log writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Creates an AsyncLogger writing to standard out, configured from the system properties.
+	 * A property that is not valid is replaced by its default and a warning is logged, so a typo
+	 * never keeps the class that logs from loading. Whatever is left in its buffer is written
+	 * when the JVM shuts down.
+	 * @return the AsyncLogger
+	 */
+	static AsyncLogger fromSystemProperties() {
+		List<String> warnings = new ArrayList<>();
+		Level level = property("utils.log.level", Level.class, Level.INFO, warnings);
+		Policy policy = property("utils.log.policy", Policy.class, Policy.DROP, warnings);
+		int capacity = DEFAULT_CAPACITY;
+		String value = System.getProperty("utils.log.capacity");
+		if (value != null) {
+			try {
+				capacity = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				capacity = 0;
+			}
+			if (capacity < 1) {
+				warnings.add("Unknown utils.log.capacity " + value + ", using " + DEFAULT_CAPACITY);
+				capacity = DEFAULT_CAPACITY;
+			}
+		}
+
+		AsyncLogger logger = new AsyncLogger(System.out, level, policy, capacity);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> logger.flush(1, TimeUnit.SECONDS), "Log flush"));
+		for (String warning : warnings) {
+			logger.log(Level.WARN, "Log", warning);
+		}
+		return logger;
+	}
+
+	/**
+	 * Reads an enum constant from a system property, ignoring case.
+	 * @param name - The name of the property
+	 * @param type - The enum
+	 * @param fallback - The constant used if the property is not set or names no constant
+	 * @param warnings - Where a warning is added if the property names no constant
+	 * @return the constant
+	 */
+	private static <E extends Enum<E>> E property(String name, Class<E> type, E fallback, List<String> warnings) {
+		String value = System.getProperty(name);
+		if (value == null) {
+			return fallback;
+		}
+		try {
+			return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			warnings.add("Unknown " + name + " " + value + ", using " + fallback);
+			return fallback;
+		}
+	}
+
+	/**
+	 * Check if messages of a level are written.
+	 * @param level
+	 * @return true if they are written, false otherwise
+	 */
+	public boolean isLoggable(Level level) {
+		return level.ordinal() >= threshold;
+	}
+
+	/**
+	 * Sets the least important level that is written.
+	 * @param level
+	 */
+	public void setLevel(Level level) {
+		threshold = level.ordinal();
+	}
+
+	/**
+	 * Gets the least important level that is written.
+	 * @return the level
+	 */
+	public Level getLevel() {
+		return Level.values()[threshold];
+	}
+
+	/**
+	 * Logs a message with a tag.
+	 * @param level
+	 * @param tag
+	 * @param message
+	 */
+	public void log(Level level, String tag, String message) {
+		if (isLoggable(level)) {
+			enqueue(tag, message);
+		}
+	}
+
+	/**
+	 * Logs a message with a tag. The message is only built if its level is written.
+	 * @param level
+	 * @param tag
+	 * @param message
+	 */
+	public void log(Level level, String tag, Supplier<String> message) {
+		if (isLoggable(level)) {
+			enqueue(tag, message.get());
+		}
+	}
+
+	/**
+	 * Gets the number of messages dropped because the buffer was full.
+	 * @return the number of messages
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Puts a message into the buffer, dropping it or waiting for room if the buffer is full.
+	 * @param tag
+	 * @param message
+	 */
+	private void enqueue(String tag, String message) {
+		lock.lock();
+		try {
+			while (tail - head == tags.length) {
+				if (policy == Policy.DROP || Thread.currentThread() == writer) {
+					dropped.incrementAndGet();
+					return;
+				}
+				notFull.awaitUninterruptibly();
+			}
+			int slot = (int) (tail % tags.length);
+			tags[slot] = tag;
+			messages[slot] = message;
+			if (tail++ == head) {
+				notEmpty.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the messages in the buffer as they come, until the JVM exits.
+	 */
+	private void drain() {
+		String[] batchTags = new String[BATCH];
+		String[] batchMessages = new String[BATCH];
+		StringBuilder sb = new StringBuilder();
+		long reported = 0;
+		while (true) {
+			// Copy out a batch of messages, freeing their slots
+			int count = 0;
+			lock.lock();
+			try {
+				writing = false;
+				while (head == tail) {
+					drained.signalAll();
+					notEmpty.awaitUninterruptibly();
+				}
+				while (head < tail && count < BATCH) {
+					int slot = (int) (head++ % tags.length);
+					batchTags[count] = tags[slot];
+					batchMessages[count++] = messages[slot];
+					tags[slot] = null;
+					messages[slot] = null;
+				}
+				writing = true;
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+
+			// Write the batch outside the lock
+			long drops = dropped.get();
+			if (drops != reported) {
+				sb.append("[Log] Dropped ").append(drops - reported).append(" messages\n");
+				reported = drops;
+			}
+			for (int i = 0; i < count; i++) {
+				sb.append("[").append(batchTags[i]).append("] ").append(batchMessages[i]).append('\n');
+				batchTags[i] = null;
+				batchMessages[i] = null;
+			}
+			out.print(sb);
+			out.flush();
+			sb.setLength(0);
+		}
+	}
+
+	/**
+	 * Waits until every message logged so far is written.
+	 * @param timeout
+	 * @param unit
+	 * @return true if everything was written, false if the time ran out
+	 */
+	public boolean flush(long timeout, TimeUnit unit) {
+		long nanos = unit.toNanos(timeout);
+		lock.lock();
+		try {
+			while (head != tail || writing) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = drained.awaitNanos(nanos);
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,518 @@
+package utils;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import math.AdjacencyStorage;
+import math.Graph;
+import math.PrimsAlgorithm;
+
+/**
+ * Draws graphs with their vertices placed around a circle, caching what does not change
+ * between repaints.
+ *
+ * For each graph the position of every vertex is computed once, and the labels, vertices and
+ * edges are drawn once into a BufferedImage. A repaint draws that image and, for Prim's
+ * algorithm, only the edges and vertices of the tree on top of it. The cache holds the last
+ * few graphs drawn and is rebuilt when the center, the font, the color or the edges of a graph
+ * change.
+ *
+ * Large graphs cannot be drawn in full detail: a circle of radius 150 only has room for a few
+ * hundred vertices, and drawing every edge of a graph with thousands of vertices takes seconds
+ * and fills the circle. The level of detail is picked from the number of vertices and edges:
+ *    - FULL: every vertex and edge. Labels are left out when they would overlap, and edges
+ *      shorter than a pixel are culled.
+ *    - DEGREE_BINNED: neighbouring vertices are grouped into bins around the circle, each drawn
+ *      with a size by its total degree, and the edges between two bins are drawn as one line
+ *      that is darker the more edges it stands for.
+ *    - HEATMAP: the adjacency matrix is drawn as a grid of cells, each shaded by how many
+ *      entries fall into it.
+ * Building a layer takes time linear in the number of vertices and edges in every mode, and
+ * the number of shapes drawn is bounded by the bin and cell counts, so frame times stay bounded.
+ *
+ * A GraphRenderer is meant to be used from the event dispatch thread only.
+ * @author Gunnar Arnesen
+ *
+ */
+public class GraphRenderer {
+
+	/**
+	 * The levels of detail a graph can be drawn at.
+	 */
+	public enum Detail {
+		FULL, DEGREE_BINNED, HEATMAP
+	}
+
+	public static final int RADIUS = 150;
+	private static final int LABEL_RADIUS = RADIUS + 20;
+	private static final int VERTEX_SIZE = 8;
+	/** Room around the label circle for the text of the labels **/
+	private static final int MARGIN = 50;
+	/** The number of graphs whose layers are kept **/
+	private static final int CACHE_SIZE = 8;
+
+	/** The largest graphs drawn in FULL detail **/
+	public static final int FULL_MAX_VERTICES = 500;
+	public static final long FULL_MAX_EDGES = 20000;
+	/** The largest graphs drawn DEGREE_BINNED; larger graphs are drawn as a HEATMAP **/
+	public static final int BINNED_MAX_VERTICES = 20000;
+	public static final long BINNED_MAX_EDGES = 500000;
+
+	/** The number of bins around the circle in DEGREE_BINNED **/
+	private static final int BINS = 128;
+	/** The number of shades the lines of DEGREE_BINNED are drawn in **/
+	private static final int SHADES = 12;
+	/** The smallest distance between two labels, in pixels **/
+	private static final int LABEL_SPACING = 14;
+
+	private static final BasicStroke EDGE_STROKE = new BasicStroke(1);
+	private static final BasicStroke TREE_STROKE = new BasicStroke(5);
+	private static final BasicStroke BINNED_TREE_STROKE = new BasicStroke(2);
+
+	private static final Metrics.Counter LAYER_HITS = Metrics.counter("renderer.layers.hits");
+	private static final Metrics.Counter LAYER_MISSES = Metrics.counter("renderer.layers.misses");
+	private static final Metrics.Timer LAYER_TIMER = Metrics.timer("renderer.layer");
+
+	private Map<Graph, Layer> layers;
+	/** The level of detail to draw at, or null to pick it for each graph **/
+	private Detail detail;
+
+	/**
+	 * Creates a new GraphRenderer with an empty cache.
+	 */
+	public GraphRenderer() {
+		layers = new LinkedHashMap<Graph, Layer>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Graph, Layer> eldest) {
+				return size() > CACHE_SIZE;
+			}
+		};
+	}
+
+	/**
+	 * Picks the level of detail for a graph of the given size.
+	 * @param vertices
+	 * @param edges
+	 * @return the level of detail
+	 */
+	public static Detail chooseDetail(int vertices, long edges) {
+		if (vertices <= FULL_MAX_VERTICES && edges <= FULL_MAX_EDGES) {
+			return Detail.FULL;
+		} else if (vertices <= BINNED_MAX_VERTICES && edges <= BINNED_MAX_EDGES) {
+			return Detail.DEGREE_BINNED;
+		}
+		return Detail.HEATMAP;
+	}
+
+	/**
+	 * Sets the level of detail every graph is drawn at.
+	 * @param detail - The level of detail, or null to pick it from the size of each graph
+	 */
+	public void setDetail(Detail detail) {
+		if (this.detail != detail) {
+			this.detail = detail;
+			layers.clear();
+		}
+	}
+
+	/**
+	 * Gets the level of detail a graph is drawn at.
+	 * @param graph
+	 * @return the level of detail
+	 */
+	public Detail getDetail(Graph graph) {
+		AdjacencyStorage am = graph.getStorage();
+		return detail != null ? detail : chooseDetail(am.getSize(), am.getEntryCount() / 2);
+	}
+
+	/**
+	 * Draws a graph around a center point.
+	 * @param g
+	 * @param graph
+	 * @param center
+	 */
+	public void draw(Graphics g, Graph graph, Point center) {
+		Layer layer = layerFor(g, graph, center, false);
+		g.drawImage(layer.image, layer.originX, layer.originY, null);
+	}
+
+	/**
+	 * Draws a weighted graph around a center point, with the tree of Prim's algorithm at its
+	 * current step highlighted. Only the tree is drawn on each call; the rest of the graph comes
+	 * from the cached layer.
+	 * @param g
+	 * @param graph
+	 * @param center
+	 */
+	public void draw(Graphics g, PrimsAlgorithm graph, Point center) {
+		Layer layer = layerFor(g, graph, center, true);
+		g.drawImage(layer.image, layer.originX, layer.originY, null);
+		int[] x = layer.x;
+		int[] y = layer.y;
+
+		// Draw the edges of the tree, then its vertices on top
+		int steps = graph.getStep();
+		Graphics2D g2 = (Graphics2D) g.create();
+		try {
+			g2.setColor(Color.RED);
+			if (layer.detail == Detail.HEATMAP) {
+				// An edge is the cell of its entry, on both sides of the diagonal
+				for (int i = 1; i < steps; i++) {
+					int vertex = graph.getVisitedVertex(i);
+					int parent = graph.getTreeParent(vertex);
+					g2.fillRect(x[vertex] - 1, y[parent] - 1, 3, 3);
+					g2.fillRect(x[parent] - 1, y[vertex] - 1, 3, 3);
+				}
+				return;
+			}
+			g2.setStroke(layer.detail == Detail.FULL ? TREE_STROKE : BINNED_TREE_STROKE);
+			for (int i = 1; i < steps; i++) {
+				int vertex = graph.getVisitedVertex(i);
+				int parent = graph.getTreeParent(vertex);
+				if (x[vertex] != x[parent] || y[vertex] != y[parent]) {
+					g2.drawLine(x[parent], y[parent], x[vertex], y[vertex]);
+				}
+			}
+			int size = layer.detail == Detail.FULL ? VERTEX_SIZE : VERTEX_SIZE / 2;
+			for (int i = 0; i < steps; i++) {
+				int vertex = graph.getVisitedVertex(i);
+				g2.fillOval(x[vertex] - size / 2, y[vertex] - size / 2, size, size);
+			}
+		} finally {
+			g2.dispose();
+		}
+	}
+
+	/**
+	 * Forgets every cached layer.
+	 */
+	public void clear() {
+		layers.clear();
+	}
+
+	/**
+	 * Gets the cached layer of a graph, building it if it is missing or out of date.
+	 * @param g - The graphics it will be drawn on, for the font and color
+	 * @param graph
+	 * @param center
+	 * @param weighted - If the graph is drawn for Prim's algorithm
+	 * @return the layer
+	 */
+	private Layer layerFor(Graphics g, Graph graph, Point center, boolean weighted) {
+		Layer layer = layers.get(graph);
+		long fingerprint = fingerprint(graph);
+		if (layer == null || !layer.matches(g, center, fingerprint, weighted)) {
+			LAYER_MISSES.increment();
+			long start = LAYER_TIMER.start();
+			layer = new Layer(g, graph.getStorage(), getDetail(graph), center, fingerprint, weighted);
+			LAYER_TIMER.stop(start);
+			layers.put(graph, layer);
+		} else {
+			LAYER_HITS.increment();
+		}
+		return layer;
+	}
+
+	/**
+	 * Gets a value that changes when the edges of a graph change: the modification count of its
+	 * storage, which every change adds to.
+	 * @param graph
+	 * @return the fingerprint
+	 */
+	private static long fingerprint(Graph graph) {
+		return graph.getStorage().getModCount();
+	}
+
+	/**
+	 * The cached drawing of one graph: where its vertices are and an image of everything that
+	 * does not change between repaints.
+	 */
+	private static class Layer {
+
+		private final Detail detail;
+		private final Point center;
+		private final long fingerprint;
+		private final boolean weighted;
+		private final Font font;
+		private final Color color;
+
+		/** Where each vertex is drawn: its point on the circle, or its cell in a HEATMAP **/
+		private final int[] x;
+		private final int[] y;
+		private final BufferedImage image;
+		private final int originX;
+		private final int originY;
+
+		/**
+		 * Lays out the vertices of a graph and draws it at the given level of detail.
+		 * @param g
+		 * @param am
+		 * @param detail
+		 * @param center
+		 * @param fingerprint
+		 * @param weighted
+		 */
+		Layer(Graphics g, AdjacencyStorage am, Detail detail, Point center, long fingerprint, boolean weighted) {
+			this.detail = detail;
+			this.center = new Point(center);
+			this.fingerprint = fingerprint;
+			this.weighted = weighted;
+			this.font = g.getFont();
+			this.color = g.getColor();
+			x = new int[am.getSize()];
+			y = new int[am.getSize()];
+
+			// The image covers the circle of labels and the margin around it
+			int extent = LABEL_RADIUS + MARGIN;
+			originX = center.x - extent;
+			originY = center.y - extent;
+			image = new BufferedImage(2 * extent, 2 * extent, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g2 = image.createGraphics();
+			g2.translate(-originX, -originY);
+			g2.setFont(font);
+			g2.setColor(color);
+			switch (detail) {
+			case FULL:
+				drawFull(g2, am);
+				break;
+			case DEGREE_BINNED:
+				drawBinned(g2, am);
+				break;
+			default:
+				drawHeatmap(g2, am);
+			}
+			g2.dispose();
+		}
+
+		/**
+		 * Draws every vertex and edge.
+		 * @param g2
+		 * @param am
+		 */
+		private void drawFull(Graphics2D g2, AdjacencyStorage am) {
+			// Calculate and store the x,y coordinates for each vertex
+			int size = am.getSize();
+			double div = 2 * Math.PI / size;
+			for (int i = 0; i < size; i++) {
+				double angle = i * div;
+				x[i] = (int) (RADIUS * Math.cos(angle) + center.x);
+				y[i] = (int) (RADIUS * Math.sin(angle) + center.y);
+			}
+
+			// Draw the labels, if there is room for them, and the vertices
+			boolean labels = LABEL_RADIUS * div >= LABEL_SPACING;
+			for (int i = 0; i < size; i++) {
+				if (labels) {
+					double angle = i * div;
+					g2.setColor(color);
+					g2.drawString("V" + (i + 1), center.x + (int) (LABEL_RADIUS * Math.cos(angle)), center.y + (int) (LABEL_RADIUS * Math.sin(angle)));
+				}
+				g2.setColor(weighted ? Color.GRAY : color);
+				g2.fillOval(x[i] - VERTEX_SIZE / 2, y[i] - VERTEX_SIZE / 2, VERTEX_SIZE, VERTEX_SIZE);
+			}
+
+			// Draw the edges between the vertices, culling those shorter than a pixel
+			g2.setColor(weighted ? Color.GRAY : color);
+			g2.setStroke(EDGE_STROKE);
+			int[] adjacent = new int[size];
+			for (int row = 0; row < size - 1; row++) {
+				int count = am.neighbors(row, adjacent);
+				for (int i = 0; i < count; i++) {
+					int col = adjacent[i];
+					if (col > row && (x[row] != x[col] || y[row] != y[col])) {
+						g2.drawLine(x[row], y[row], x[col], y[col]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Draws the vertices grouped into bins around the circle and one line for the edges
+		 * between each pair of bins.
+		 * @param g2
+		 * @param am
+		 */
+		private void drawBinned(Graphics2D g2, AdjacencyStorage am) {
+			int size = am.getSize();
+			int bins = Math.min(size, BINS);
+			double div = 2 * Math.PI / bins;
+
+			// Place each vertex at the center of its bin and sum the degrees of each bin
+			int[] binX = new int[bins];
+			int[] binY = new int[bins];
+			for (int b = 0; b < bins; b++) {
+				double angle = (b + 0.5) * div;
+				binX[b] = (int) (RADIUS * Math.cos(angle) + center.x);
+				binY[b] = (int) (RADIUS * Math.sin(angle) + center.y);
+			}
+			long[] binDegree = new long[bins];
+			int[] binOf = new int[size];
+			for (int v = 0; v < size; v++) {
+				int b = (int) ((long) v * bins / size);
+				binOf[v] = b;
+				x[v] = binX[b];
+				y[v] = binY[b];
+				binDegree[b] += am.degree(v);
+			}
+
+			// Count the edges between each pair of bins. Bins grow with the vertices, so the
+			// bin of the row is never after the bin of the column.
+			int[] edges = new int[bins * bins];
+			int[] adjacent = new int[size];
+			int maxEdges = 0;
+			for (int row = 0; row < size - 1; row++) {
+				int count = am.neighbors(row, adjacent);
+				int base = binOf[row] * bins;
+				for (int i = 0; i < count; i++) {
+					if (adjacent[i] > row) {
+						maxEdges = Math.max(maxEdges, ++edges[base + binOf[adjacent[i]]]);
+					}
+				}
+			}
+
+			// Draw one line per pair of bins, darker the more edges it stands for. Edges within a
+			// bin are shorter than the bin and are culled. Blending lines is slow, so each line is
+			// drawn in one of a few opaque shades, the lightest first.
+			Color edgeColor = weighted ? Color.GRAY : color;
+			double logMax = Math.log1p(maxEdges);
+			int[] shadeOf = new int[bins * bins];
+			int[] shadeCount = new int[SHADES];
+			for (int i = 0; i < edges.length; i++) {
+				if (edges[i] > 0) {
+					shadeOf[i] = (int) Math.min(SHADES - 1, SHADES * Math.log1p(edges[i]) / (logMax + 1e-9));
+					shadeCount[shadeOf[i]]++;
+				}
+			}
+			g2.setStroke(EDGE_STROKE);
+			for (int shade = 0; shade < SHADES; shade++) {
+				if (shadeCount[shade] == 0) {
+					continue;
+				}
+				g2.setColor(shade(edgeColor, (shade + 1.0) / SHADES));
+				for (int a = 0; a < bins; a++) {
+					for (int b = a + 1; b < bins; b++) {
+						int i = a * bins + b;
+						if (edges[i] > 0 && shadeOf[i] == shade) {
+							g2.drawLine(binX[a], binY[a], binX[b], binY[b]);
+						}
+					}
+				}
+			}
+
+			// Draw each bin with a size by its degree
+			long maxDegree = 1;
+			for (long degree : binDegree) {
+				maxDegree = Math.max(maxDegree, degree);
+			}
+			g2.setColor(weighted ? Color.GRAY : color);
+			for (int b = 0; b < bins; b++) {
+				int diameter = 2 + (int) Math.round(VERTEX_SIZE * Math.sqrt((double) binDegree[b] / maxDegree));
+				g2.fillOval(binX[b] - diameter / 2, binY[b] - diameter / 2, diameter, diameter);
+			}
+
+			// Label the first vertex of every few bins
+			g2.setColor(color);
+			int every = Math.max(1, (int) Math.ceil(4 * LABEL_SPACING / (LABEL_RADIUS * div)));
+			for (int b = 0; b < bins; b += every) {
+				double angle = (b + 0.5) * div;
+				int first = (int) (((long) b * size + bins - 1) / bins);
+				g2.drawString("V" + (first + 1), center.x + (int) (LABEL_RADIUS * Math.cos(angle)), center.y + (int) (LABEL_RADIUS * Math.sin(angle)));
+			}
+		}
+
+		/**
+		 * Draws the adjacency matrix as a grid of cells, each shaded by the number of entries in
+		 * it on a log scale.
+		 * @param g2
+		 * @param am
+		 */
+		private void drawHeatmap(Graphics2D g2, AdjacencyStorage am) {
+			int size = am.getSize();
+			int cells = Math.min(size, 2 * RADIUS);
+			int cellSize = 2 * RADIUS / cells;
+			int left = center.x - cells * cellSize / 2;
+			int top = center.y - cells * cellSize / 2;
+
+			// Place each vertex at its cell along both axes
+			int[] cellOf = new int[size];
+			for (int v = 0; v < size; v++) {
+				cellOf[v] = (int) ((long) v * cells / size);
+				x[v] = left + cellOf[v] * cellSize + cellSize / 2;
+				y[v] = top + cellOf[v] * cellSize + cellSize / 2;
+			}
+
+			// Count the entries in each cell
+			int[] entries = new int[cells * cells];
+			int[] adjacent = new int[size];
+			int maxEntries = 0;
+			for (int row = 0; row < size; row++) {
+				int count = am.neighbors(row, adjacent);
+				int base = cellOf[row] * cells;
+				for (int i = 0; i < count; i++) {
+					maxEntries = Math.max(maxEntries, ++entries[base + cellOf[adjacent[i]]]);
+				}
+			}
+
+			// Shade each cell, darker the more entries it holds. The cells do not overlap, so their
+			// pixels are written straight into the image instead of blended.
+			Color cellColor = weighted ? Color.GRAY : color;
+			int rgb = cellColor.getRGB() & 0xFFFFFF;
+			double logMax = Math.log1p(maxEntries);
+			for (int row = 0; row < cells; row++) {
+				for (int col = 0; col < cells; col++) {
+					int count = entries[row * cells + col];
+					if (count > 0) {
+						int alpha = (int) (40 + 215 * Math.log1p(count) / logMax);
+						int px = left + col * cellSize - originX;
+						int py = top + row * cellSize - originY;
+						for (int dy = 0; dy < cellSize; dy++) {
+							for (int dx = 0; dx < cellSize; dx++) {
+								image.setRGB(px + dx, py + dy, alpha << 24 | rgb);
+							}
+						}
+					}
+				}
+			}
+
+			// Frame the matrix and note what it shows
+			g2.setColor(color);
+			g2.drawRect(left - 1, top - 1, cells * cellSize + 1, cells * cellSize + 1);
+			g2.drawString(size + " vertices, " + am.getEntryCount() / 2 + " edges", left, top - 8);
+		}
+
+		/**
+		 * Mixes a color with white.
+		 * @param color
+		 * @param strength - How much of the color is kept, from 0 for white to 1 for the color
+		 * @return the opaque mixed color
+		 */
+		private static Color shade(Color color, double strength) {
+			return new Color(255 - (int) ((255 - color.getRed()) * strength), 255 - (int) ((255 - color.getGreen()) * strength),
+					255 - (int) ((255 - color.getBlue()) * strength));
+		}
+
+		/**
+		 * Check if this layer can still be used.
+		 * @param g
+		 * @param center
+		 * @param fingerprint
+		 * @param weighted
+		 * @return true if nothing the layer depends on changed, false otherwise
+		 */
+		boolean matches(Graphics g, Point center, long fingerprint, boolean weighted) {
+			return this.center.equals(center) && this.fingerprint == fingerprint && this.weighted == weighted
+					&& Objects.equals(font, g.getFont()) && Objects.equals(color, g.getColor());
+		}
+	}
+
+}
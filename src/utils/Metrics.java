@@ -0,0 +1,376 @@
+package utils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import utils.AsyncLogger.Level;
+
+/**
+ * Counters and latency histograms for the operations that take time, such as parsing, the
+ * analyses of a graph and the steps of Prim's algorithm, and for the hit rates of the caches.
+ *
+ * A metric is looked up by name once, kept in a static field and updated on the hot path:
+ *    - A Counter is a LongAdder, so threads adding to it do not contend.
+ *    - A Timer keeps a histogram of times in the style of HdrHistogram: each power of two is
+ *      split into 16 buckets, so every time is kept to within 1/16 of its value, from a
+ *      nanosecond up to centuries, in 960 buckets. Each thread records into one of a few
+ *      stripes of buckets picked by its id, and the stripes are only added up when read.
+ *
+ * Every metric can be watched through JMX under combinatorics:type=Metrics and dumped to a file.
+ * If the system property utils.metrics.dump names a file, the metrics are dumped to it when the
+ * JVM shuts down.
+ * @author Gunnar Arnesen
+ *
+ */
+public final class Metrics implements MetricsMBean {
+
+	public static final String OBJECT_NAME = "combinatorics:type=Metrics";
+
+	/** The number of buckets each power of two is split into, as a power of two **/
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+	private static final int STRIPES = Integer.highestOneBit(Math.min(8, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+	private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<String, Counter>();
+	private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<String, Timer>();
+	private static volatile boolean enabled = !Boolean.getBoolean("utils.metrics.disabled");
+
+	private static final Metrics INSTANCE = new Metrics();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+		} catch (JMException | SecurityException e) {
+			Utils.log(Level.WARN, "Metrics", "Could not register the metrics with JMX: " + e.getMessage());
+		}
+		String dump = System.getProperty("utils.metrics.dump");
+		if (dump != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					INSTANCE.dump(dump);
+				} catch (IOException e) {
+					System.err.println("Could not dump the metrics to " + dump + ": " + e.getMessage());
+				}
+			}, "Metrics dump"));
+		}
+	}
+
+	private Metrics() {}
+
+	/**
+	 * Gets the counter of a name, creating it the first time.
+	 * @param name
+	 * @return the Counter
+	 */
+	public static Counter counter(String name) {
+		return COUNTERS.computeIfAbsent(name, key -> new Counter());
+	}
+
+	/**
+	 * Gets the timer of a name, creating it the first time.
+	 * @param name
+	 * @return the Timer
+	 */
+	public static Timer timer(String name) {
+		return TIMERS.computeIfAbsent(name, key -> new Timer());
+	}
+
+	/**
+	 * Gets the instance that is registered with JMX.
+	 * @return the Metrics
+	 */
+	public static Metrics get() {
+		return INSTANCE;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+
+	@Override
+	public String[] getNames() {
+		String[] names = new String[COUNTERS.size() + TIMERS.size()];
+		int count = 0;
+		for (String name : COUNTERS.keySet()) {
+			if (count < names.length) {
+				names[count++] = name;
+			}
+		}
+		for (String name : TIMERS.keySet()) {
+			if (count < names.length) {
+				names[count++] = name;
+			}
+		}
+		names = Arrays.copyOf(names, count);
+		Arrays.sort(names);
+		return names;
+	}
+
+	@Override
+	public String getSummary() {
+		StringBuilder sb = new StringBuilder();
+		for (String name : getNames()) {
+			Counter counter = COUNTERS.get(name);
+			if (counter != null) {
+				sb.append(name).append(" count=").append(counter.get()).append('\n');
+			}
+			Timer timer = TIMERS.get(name);
+			if (timer != null) {
+				sb.append(name).append(' ').append(timer).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public long getCount(String name) {
+		Counter counter = COUNTERS.get(name);
+		if (counter != null) {
+			return counter.get();
+		}
+		Timer timer = TIMERS.get(name);
+		return timer == null ? -1 : timer.getCount();
+	}
+
+	@Override
+	public long getPercentile(String name, double percentile) {
+		Timer timer = TIMERS.get(name);
+		return timer == null ? -1 : timer.getPercentile(percentile);
+	}
+
+	@Override
+	public void dump(String file) throws IOException {
+		Files.write(Paths.get(file), getSummary().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void reset() {
+		for (Counter counter : COUNTERS.values()) {
+			counter.count.reset();
+		}
+		for (Timer timer : TIMERS.values()) {
+			timer.reset();
+		}
+	}
+
+	/**
+	 * Gets the bucket a value is counted in.
+	 * @param value - A value of at least 0
+	 * @return the bucket
+	 */
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Gets the largest value counted in a bucket.
+	 * @param bucket
+	 * @return the value
+	 */
+	static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * A count of events, such as cache hits.
+	 */
+	public static final class Counter {
+
+		private final LongAdder count = new LongAdder();
+
+		private Counter() {}
+
+		/**
+		 * Adds one to the count.
+		 */
+		public void increment() {
+			if (enabled) {
+				count.increment();
+			}
+		}
+
+		/**
+		 * Adds to the count.
+		 * @param amount
+		 */
+		public void add(long amount) {
+			if (enabled) {
+				count.add(amount);
+			}
+		}
+
+		/**
+		 * Gets the count.
+		 * @return the count
+		 */
+		public long get() {
+			return count.sum();
+		}
+	}
+
+	/**
+	 * A histogram of the times an operation took.
+	 */
+	public static final class Timer {
+
+		private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private Timer() {
+			for (int i = 0; i < STRIPES; i++) {
+				stripes[i] = new AtomicLongArray(BUCKETS);
+			}
+		}
+
+		/**
+		 * Gets the time to pass to stop, or 0 if the metrics are not recorded.
+		 * @return the start time in nanoseconds
+		 */
+		public long start() {
+			return enabled ? System.nanoTime() : 0;
+		}
+
+		/**
+		 * Records the time since start.
+		 * @param start - The time returned by start
+		 */
+		public void stop(long start) {
+			if (start != 0) {
+				record(System.nanoTime() - start);
+			}
+		}
+
+		/**
+		 * Records how long the operation took once.
+		 * @param nanos
+		 */
+		public void record(long nanos) {
+			if (!enabled) {
+				return;
+			}
+			nanos = Math.max(0, nanos);
+			stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)].incrementAndGet(bucketOf(nanos));
+			total.add(nanos);
+			max.accumulate(nanos);
+		}
+
+		/**
+		 * Adds up the stripes.
+		 * @return the count of each bucket
+		 */
+		private long[] counts() {
+			long[] counts = new long[BUCKETS];
+			for (AtomicLongArray stripe : stripes) {
+				for (int i = 0; i < BUCKETS; i++) {
+					counts[i] += stripe.get(i);
+				}
+			}
+			return counts;
+		}
+
+		/**
+		 * Gets the number of times recorded.
+		 * @return the count
+		 */
+		public long getCount() {
+			long count = 0;
+			for (long bucket : counts()) {
+				count += bucket;
+			}
+			return count;
+		}
+
+		/**
+		 * Gets a percentile of the times, to within 1/16 of its value.
+		 * @param percentile - The percentile, from 0 to 100
+		 * @return the time in nanoseconds, or 0 if nothing was recorded
+		 */
+		public long getPercentile(double percentile) {
+			return percentile(counts(), percentile);
+		}
+
+		/**
+		 * Gets a percentile of the counted times by the nearest rank.
+		 * @param counts
+		 * @param percentile
+		 * @return the time in nanoseconds, or 0 if nothing was counted
+		 */
+		private long percentile(long[] counts, double percentile) {
+			if (percentile < 0 || percentile > 100) {
+				throw new IllegalArgumentException("The percentile needs to be between 0 and 100.");
+			}
+			long count = 0;
+			for (long bucket : counts) {
+				count += bucket;
+			}
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(highestValueOf(i), max.get());
+				}
+			}
+			return max.get();
+		}
+
+		/**
+		 * Sets the times back to zero.
+		 */
+		private void reset() {
+			for (AtomicLongArray stripe : stripes) {
+				for (int i = 0; i < BUCKETS; i++) {
+					stripe.set(i, 0);
+				}
+			}
+			total.reset();
+			max.reset();
+		}
+
+		@Override
+		public String toString() {
+			long[] counts = counts();
+			long count = 0;
+			for (long bucket : counts) {
+				count += bucket;
+			}
+			return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", count,
+					count == 0 ? 0 : total.sum() / 1e3 / count, percentile(counts, 50) / 1e3, percentile(counts, 90) / 1e3,
+					percentile(counts, 99) / 1e3, percentile(counts, 99.9) / 1e3, max.get() / 1e3);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package utils;
+
+import java.io.IOException;
+
+/**
+ * The management interface of Metrics, for watching the counters and timers of a running
+ * instance through JMX.
+ * @author Gunnar Arnesen
+ *
+ */
+public interface MetricsMBean {
+
+	/**
+	 * Check if the metrics are being recorded.
+	 * @return true if they are recorded, false otherwise
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Turns the recording of the metrics on or off.
+	 * @param enabled
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Gets the names of every counter and timer.
+	 * @return the names
+	 */
+	String[] getNames();
+
+	/**
+	 * Gets one line per counter and timer with its count and, for a timer, its mean, percentiles
+	 * and maximum.
+	 * @return the summary
+	 */
+	String getSummary();
+
+	/**
+	 * Gets the count of a counter, or the number of times recorded by a timer.
+	 * @param name
+	 * @return the count, or -1 if there is no such metric
+	 */
+	long getCount(String name);
+
+	/**
+	 * Gets a percentile of a timer.
+	 * @param name
+	 * @param percentile - The percentile, from 0 to 100
+	 * @return the time in nanoseconds, or -1 if there is no such timer
+	 */
+	long getPercentile(String name, double percentile);
+
+	/**
+	 * Writes the summary to a file, replacing it.
+	 * @param file
+	 * @throws IOException if the file cannot be written
+	 */
+	void dump(String file) throws IOException;
+
+	/**
+	 * Sets every counter and timer back to zero.
+	 */
+	void reset();
+
+}
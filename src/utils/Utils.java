@@ -1,20 +1,17 @@
 package utils;
-import java.awt.BasicStroke;
-import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.Point;
-import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import javax.swing.UIManager;
 
 import math.Graph;
 import math.PrimsAlgorithm;
-import math.SquareMatrix;
 
 /**
  * A utility class to hold convenience methods.
- *    - Log methods to print out message with a tag
+ *    - Log methods to print out message with a tag, written in the background by an AsyncLogger
  *    - Method to change the look and feel of the application
  *    - Method to draw a graph
  * @author Gunnar Arnesen
@@ -22,7 +19,13 @@ import math.SquareMatrix;
  */
 public class Utils {
 
-	private static final String DEFAULT_TAG = "[P]";
+	private static final String DEFAULT_TAG = "P";
+
+	/** Writes the messages of every log method **/
+	private static final AsyncLogger LOGGER = AsyncLogger.fromSystemProperties();
+
+	/** Draws the graphs of both panels, caching their layouts **/
+	private static final GraphRenderer RENDERER = new GraphRenderer();
 
 	private Utils() {}
 
@@ -31,9 +34,7 @@ public class Utils {
 	 * @param message
 	 */
 	public static void log(String message) {
-		StringBuilder sb = new StringBuilder();
-		sb.append(DEFAULT_TAG).append(" ").append(message);
-		System.out.println(sb);
+		LOGGER.log(AsyncLogger.Level.INFO, DEFAULT_TAG, message);
 	}
 
 	/**
@@ -42,9 +43,52 @@ public class Utils {
 	 * @param message
 	 */
 	public static void log(String tag, String message) {
-		StringBuilder sb = new StringBuilder();
-		sb.append("[").append(tag).append("] ").append(message);
-		System.out.println(sb);
+		LOGGER.log(AsyncLogger.Level.INFO, tag, message);
+	}
+
+	/**
+	 * Prints the sent message with the provided tag if its level is written.
+	 * @param level
+	 * @param tag
+	 * @param message
+	 */
+	public static void log(AsyncLogger.Level level, String tag, String message) {
+		LOGGER.log(level, tag, message);
+	}
+
+	/**
+	 * Prints a message with the provided tag if its level is written. The message is only
+	 * built when it is.
+	 * @param level
+	 * @param tag
+	 * @param message
+	 */
+	public static void log(AsyncLogger.Level level, String tag, Supplier<String> message) {
+		LOGGER.log(level, tag, message);
+	}
+
+	/**
+	 * Check if messages of a level are written.
+	 * @param level
+	 * @return true if they are written, false otherwise
+	 */
+	public static boolean isLoggable(AsyncLogger.Level level) {
+		return LOGGER.isLoggable(level);
+	}
+
+	/**
+	 * Sets the least important level of the messages that are written.
+	 * @param level
+	 */
+	public static void setLogLevel(AsyncLogger.Level level) {
+		LOGGER.setLevel(level);
+	}
+
+	/**
+	 * Waits until every message logged so far is written, for at most a second.
+	 */
+	public static void flushLog() {
+		LOGGER.flush(1, TimeUnit.SECONDS);
 	}
 
 	/**
@@ -54,89 +98,31 @@ public class Utils {
 		try {
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 		} catch (Exception e) {
-			log("Error", "Look and feel not changed.");
+			log(AsyncLogger.Level.WARN, "Error", "Look and feel not changed.");
 		}
 	}
 	
 	/**
 	 * Draws this graph around a center point. The vertices are placed around
 	 * with equal distances from each other. Then, the edges are placed between
-	 * the vertices.
+	 * the vertices. The drawing is cached, see GraphRenderer.
 	 * @param g
 	 * @param graph
 	 * @param center
 	 */
 	public static void drawGraph(Graphics g, Graph graph, Point center) {
-		SquareMatrix am = graph.getAdjacencyMatrix();
-		int RADIUS = 150;
-		int labelRad = RADIUS + 20;
-		double div = 2 * Math.PI / am.getSize();
-		double angle = 0;
-		
-		// Calculate and store the x,y coordinates for each vertex. Also draw the labels.
-		ArrayList<Point> vertexPoints = new ArrayList<Point>();
-		for (int i = 0; i < am.getSize(); i++) {
-			int xCoord = (int)(RADIUS * Math.cos(angle) + center.x);
-			int yCoord = (int)(RADIUS * Math.sin(angle) + center.y);
-			g.drawString("V" + (i + 1), center.x + (int)(labelRad * Math.cos(angle)), center.y + (int)(labelRad * Math.sin(angle)));
-			g.fillOval(xCoord - 4, yCoord - 4, 8, 8);
-			vertexPoints.add(new Point(xCoord, yCoord));
-			angle += div;
-		}
-		
-		// Draw the edges between the vertices
-		for (int row = 0; row < am.getSize() - 1; row++) {
-			for (int col = row + 1; col < am.getSize(); col++) {
-				if (am.get(row, col) > 0) {
-					g.drawLine(vertexPoints.get(row).x, vertexPoints.get(row).y, vertexPoints.get(col).x, vertexPoints.get(col).y);
-				}
-			}
-		}
+		RENDERER.draw(g, graph, center);
 	}
 	
 	/**
-	 * Draws a weighted graph.
+	 * Draws a weighted graph. Only the visited edges and vertices are drawn over
+	 * the cached drawing of the graph, see GraphRenderer.
 	 * @param g
 	 * @param graph
 	 * @param center
 	 */
 	public static void drawGraph(Graphics g, PrimsAlgorithm graph, Point center) {
-		SquareMatrix am = graph.getAdjacencyMatrix();
-		int RADIUS = 150;
-		int labelRad = RADIUS + 20;
-		double div = 2 * Math.PI / am.getSize();
-		double angle = 0;
-		
-		// Calculate and store the x,y coordinates for each vertex. Also draw the labels.
-		ArrayList<Point> vertexPoints = new ArrayList<Point>();
-		for (int i = 0; i < am.getSize(); i++) {
-			int xCoord = (int)(RADIUS * Math.cos(angle) + center.x);
-			int yCoord = (int)(RADIUS * Math.sin(angle) + center.y);
-			g.drawString("V" + (i + 1), center.x + (int)(labelRad * Math.cos(angle)), center.y + (int)(labelRad * Math.sin(angle)));
-			if (graph.getVerticesVisited().contains(i)) {
-				g.setColor(Color.RED);
-			} else {
-				g.setColor(Color.GRAY);
-			}
-			g.fillOval(xCoord - 4, yCoord - 4, 8, 8);
-			vertexPoints.add(new Point(xCoord, yCoord));
-			angle += div;
-		}
-		
-		// Draw the edges between the vertices
-		for (int row = 0; row < am.getSize() - 1; row++) {
-			for (int col = row + 1; col < am.getSize(); col++) {
-				if (am.get(row, col) > 0 && graph.seenEdge(new Point(row, col))) {
-					g.setColor(Color.RED);
-					((Graphics2D) g).setStroke(new BasicStroke(5));
-					g.drawLine(vertexPoints.get(row).x, vertexPoints.get(row).y, vertexPoints.get(col).x, vertexPoints.get(col).y);
-				} else if (am.get(row, col) > 0) {
-					g.setColor(Color.GRAY);
-					((Graphics2D) g).setStroke(new BasicStroke(1));
-					g.drawLine(vertexPoints.get(row).x, vertexPoints.get(row).y, vertexPoints.get(col).x, vertexPoints.get(col).y);
-				}
-			}
-		}
+		RENDERER.draw(g, graph, center);
 	}
 
 }